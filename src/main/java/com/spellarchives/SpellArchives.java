@@ -8,9 +8,11 @@ import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 
+import com.spellarchives.api.CapabilityArchiveChangeTracker;
 import com.spellarchives.client.GuiHandler;
 import com.spellarchives.command.CommandArchives;
 import com.spellarchives.network.NetworkHandler;
+import com.spellarchives.tile.SpellCatalog;
 import com.spellarchives.util.Log;
 import com.spellarchives.config.SpellArchivesConfig;
 
@@ -43,6 +45,8 @@ public class SpellArchives {
         // Initialize common (gameplay) config early
         SpellArchivesConfig.init();
 
+        CapabilityArchiveChangeTracker.register();
+
         proxy.preInit();
     }
 
@@ -59,12 +63,14 @@ public class SpellArchives {
     }
 
     /**
-     * Forge post-initialization: finalizes client/server-specific setup.
+     * Forge post-initialization: builds the spell catalog (every mod has registered its spells
+     * and books by now) and finalizes client/server-specific setup.
      *
      * @param event The post-initialization event.
      */
     @Mod.EventHandler
     public void postInit(FMLPostInitializationEvent event) {
+        SpellCatalog.build();
         proxy.postInit();
     }
 
@@ -0,0 +1,56 @@
+package com.spellarchives.api;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.util.EnumFacing;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+
+
+/**
+ * Holder and registration for the {@link IArchiveChangeTracker} capability. The tracker is
+ * runtime state of an archive, so there is nothing to persist; the default instance reports no
+ * history at all.
+ */
+public final class CapabilityArchiveChangeTracker {
+    @CapabilityInject(IArchiveChangeTracker.class)
+    public static Capability<IArchiveChangeTracker> CHANGE_TRACKER = null;
+
+    private CapabilityArchiveChangeTracker() {}
+
+    /**
+     * Registers the capability. Called once during pre-initialization.
+     */
+    public static void register() {
+        CapabilityManager.INSTANCE.register(IArchiveChangeTracker.class, new Capability.IStorage<IArchiveChangeTracker>() {
+            @Override
+            public NBTBase writeNBT(Capability<IArchiveChangeTracker> capability, IArchiveChangeTracker instance, EnumFacing side) {
+                return null;
+            }
+
+            @Override
+            public void readNBT(Capability<IArchiveChangeTracker> capability, IArchiveChangeTracker instance, EnumFacing side, NBTBase nbt) {}
+        }, NoChanges::new);
+    }
+
+    /**
+     * Default instance for holders that do not track changes: it never answers, so callers
+     * always fall back to a full rescan.
+     */
+    private static final class NoChanges implements IArchiveChangeTracker {
+        @Override
+        public int getRevision() {
+            return 0;
+        }
+
+        @Override
+        @Nullable
+        public List<ItemStack> getChangedSince(int revision) {
+            return null;
+        }
+    }
+}
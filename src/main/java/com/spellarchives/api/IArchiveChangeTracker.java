@@ -0,0 +1,37 @@
+package com.spellarchives.api;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+import net.minecraft.item.ItemStack;
+
+
+/**
+ * Capability exposed by Spellcaster's Archives so integrations can skip archives that did not
+ * change instead of rescanning their slots every tick.
+ *
+ * Typical use: remember {@link #getRevision()} after a full scan; later, if the revision is
+ * unchanged, skip the archive; otherwise ask {@link #getChangedSince(int)} for the spell types
+ * to re-read, falling back to a full scan when it returns null.
+ */
+public interface IArchiveChangeTracker {
+    /**
+     * Returns the content revision. It increases on every content change and keeps
+     * increasing across chunk reloads, so a revision is never reused by the same archive.
+     *
+     * @return The current revision.
+     */
+    int getRevision();
+
+    /**
+     * Lists the spell book types whose counts changed after the given revision, from a bounded
+     * journal of recent changes.
+     *
+     * @param revision A revision previously returned by {@link #getRevision()}.
+     * @return Distinct 1-count stacks (new copies) of the changed types, empty if
+     *         nothing changed, or null if the journal no longer reaches back to that revision
+     *         (or the revision was never issued) and the caller has to rescan everything.
+     */
+    @Nullable
+    List<ItemStack> getChangedSince(int revision);
+}
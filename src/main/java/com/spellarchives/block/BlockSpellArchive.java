@@ -3,6 +3,7 @@ package com.spellarchives.block;
 import java.time.Instant;
 import java.util.ArrayList;
 
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockContainer;
 import net.minecraft.block.material.Material;
 import net.minecraft.block.properties.PropertyDirection;
@@ -30,6 +31,7 @@ import cofh.api.block.IDismantleable;
 
 import com.spellarchives.SpellArchives;
 import com.spellarchives.client.GuiHandler;
+import com.spellarchives.tile.ArchiveTransaction;
 import com.spellarchives.tile.TileSpellArchive;
 
 
@@ -213,20 +215,23 @@ public class BlockSpellArchive extends BlockContainer implements IDismantleable
             // Otherwise, insert only the held stack. Hold right-click within 500ms to bulk insert.
             // Will only bulk-insert the same type of item as last time to avoid confusion.
             if (Instant.now().toEpochMilli() - timeLastActivated < 500L) {
-                for (int i = 0; i < playerIn.inventory.getSizeInventory(); i++) {
-                    ItemStack slotStack = playerIn.inventory.getStackInSlot(i);
-                    if (slotStack == null || slotStack.isEmpty()) continue;
-
-                    if (lastInsertedItem == ActivationItem.SPELL_BOOK && archive.isSpellBook(slotStack)) {
-                        ItemStack remaining = archive.addBooks(slotStack);
-                        playerIn.inventory.setInventorySlotContents(i, remaining);
-                    } else if (lastInsertedItem == ActivationItem.IDENTIFICATION_SCROLL && archive.isIdentificationScroll(slotStack)) {
-                        int toAdd = slotStack.getCount();
-                        if (toAdd > 0) {
-                            int accepted = archive.addIdentificationScrolls(toAdd);
-                            if (!playerIn.isCreative() && accepted > 0) {
-                                slotStack.shrink(accepted);
-                                playerIn.inventory.setInventorySlotContents(i, slotStack.getCount() > 0 ? slotStack : ItemStack.EMPTY);
+                // One transaction for the whole inventory: a single change notification and sync
+                try (ArchiveTransaction tx = archive.beginTransaction()) {
+                    for (int i = 0; i < playerIn.inventory.getSizeInventory(); i++) {
+                        ItemStack slotStack = playerIn.inventory.getStackInSlot(i);
+                        if (slotStack == null || slotStack.isEmpty()) continue;
+
+                        if (lastInsertedItem == ActivationItem.SPELL_BOOK && archive.isSpellBook(slotStack)) {
+                            ItemStack remaining = tx.insert(slotStack);
+                            playerIn.inventory.setInventorySlotContents(i, remaining);
+                        } else if (lastInsertedItem == ActivationItem.IDENTIFICATION_SCROLL && archive.isIdentificationScroll(slotStack)) {
+                            int toAdd = slotStack.getCount();
+                            if (toAdd > 0) {
+                                int accepted = tx.insertScrolls(toAdd);
+                                if (!playerIn.isCreative() && accepted > 0) {
+                                    slotStack.shrink(accepted);
+                                    playerIn.inventory.setInventorySlotContents(i, slotStack.getCount() > 0 ? slotStack : ItemStack.EMPTY);
+                                }
                             }
                         }
                     }
@@ -396,6 +401,47 @@ public class BlockSpellArchive extends BlockContainer implements IDismantleable
         world.setBlockState(pos, state.withProperty(FACING, placer.getHorizontalFacing()), 2);
     }
 
+    /**
+     * Forwards block updates on any of the six faces so a backed-off import can wake up when its
+     * source is placed, removed or changes state.
+     *
+     * @param state Current state (unused).
+     * @param world World the block is in.
+     * @param pos Position of the archive.
+     * @param blockIn The neighbor block that changed (unused).
+     * @param fromPos Position of the changed neighbor.
+     */
+    @Override
+    public void neighborChanged(IBlockState state, World world, BlockPos pos, Block blockIn, BlockPos fromPos) {
+        TileEntity te = world.getTileEntity(pos);
+        if (te instanceof TileSpellArchive) ((TileSpellArchive) te).onNeighborChanged(fromPos);
+    }
+
+    /**
+     * Archives drive comparators with the metric selected in their GUI.
+     *
+     * @param state Current state (unused).
+     * @return Always true.
+     */
+    @Override
+    public boolean hasComparatorInputOverride(IBlockState state) {
+        return true;
+    }
+
+    /**
+     * Returns the archive's comparator level, maintained by the tile as its contents change.
+     *
+     * @param state Current state (unused).
+     * @param world World the block is in.
+     * @param pos Position of the archive.
+     * @return The comparator level (0..15).
+     */
+    @Override
+    public int getComparatorInputOverride(IBlockState state, World world, BlockPos pos) {
+        TileEntity te = world.getTileEntity(pos);
+        return te instanceof TileSpellArchive ? ((TileSpellArchive) te).getComparatorLevel() : 0;
+    }
+
     /**
      * Declares the two properties used by this block's state: FACING (orientation) and BOOKS
      * (derived stripe count for model variants).
@@ -433,8 +479,8 @@ public class BlockSpellArchive extends BlockContainer implements IDismantleable
     }
 
     /**
-     * Derives the BOOKS property from the tile's number of distinct stored spell types to
-     * select a visual model variant (0..14 stripes). This doesn't mutate the tile; it only
+     * Derives the BOOKS property from the tile's stripe bucket (number of distinct stored spell
+     * types scaled to 0..14) to select a visual model variant. This doesn't mutate the tile; it only
      * returns a state reflecting the current content.
      *
      * @param state The incoming state prior to applying BOOKS.
@@ -447,11 +493,8 @@ public class BlockSpellArchive extends BlockContainer implements IDismantleable
         TileEntity te = world.getTileEntity(pos);
         int stripes = 0;
 
-        if (te instanceof TileSpellArchive) {
-            // Number of distinct spell types in the archive, scaled to 0..14 with cap 196
-            int types = ((TileSpellArchive) te).getDistinctSpellTypeCount();
-            if (types > 0) stripes = Math.min(14, (int) Math.ceil(types * 14.0 / 196.0));
-        }
+        // Number of distinct spell types in the archive, scaled to 0..14 with cap 196
+        if (te instanceof TileSpellArchive) stripes = ((TileSpellArchive) te).getStripeCount();
 
         // If already set correctly, keep original instance to avoid redundant model cache misses
         if (state.getValue(BOOKS) == stripes) return state;
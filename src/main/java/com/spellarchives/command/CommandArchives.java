@@ -2,28 +2,32 @@ package com.spellarchives.command;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayerMP;
-import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.tileentity.TileEntity;
-import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 
 import com.spellarchives.SpellArchives;
+import com.spellarchives.config.SpellArchivesConfig;
+import com.spellarchives.tile.ArchiveStats;
+import com.spellarchives.tile.ArchiveTransaction;
+import com.spellarchives.tile.SpellCatalog;
+import com.spellarchives.tile.SpellInfo;
+import com.spellarchives.tile.SpellKeyIndex;
 import com.spellarchives.tile.TileSpellArchive;
+import com.spellarchives.util.TextUtils;
 
-import electroblob.wizardry.item.ItemSpellBook;
+import electroblob.wizardry.constants.Element;
+import electroblob.wizardry.constants.Tier;
 import electroblob.wizardry.spell.Spell;
 
 
@@ -33,10 +37,15 @@ public class CommandArchives extends CommandBase {
     public String getName() { return "archives"; }
 
     @Override
-    public String getUsage(ICommandSender sender) { return "/archives fill <count|\"max\"> [typesCount]"; }
+    public String getUsage(ICommandSender sender) { return "/archives fill <count|\"max\"> [typesCount] | /archives stats"; }
 
     @Override
     public void execute(MinecraftServer server, ICommandSender sender, String[] args) {
+        if (args.length == 1 && "stats".equalsIgnoreCase(args[0])) {
+            executeStats(sender);
+            return;
+        }
+
         if (args.length < 2 || !"fill".equalsIgnoreCase(args[0])) {
             SpellArchives.LOGGER.chatWarnTrans(sender, "chat.spellarchives.usage", getUsage(sender));
             return;
@@ -66,29 +75,8 @@ public class CommandArchives extends CommandBase {
             }
         }
 
-        // Sender must be a player to ray trace what they're looking at
-        Entity entity = sender.getCommandSenderEntity();
-        if (!(entity instanceof EntityPlayerMP)) {
-            SpellArchives.LOGGER.chatErrorTrans(sender, "chat.spellarchives.player_only");
-            return;
-        }
-        EntityPlayerMP player = (EntityPlayerMP) entity;
-
-        // Ray trace to find the block the player is looking at
-        RayTraceResult hit = rayTrace(player, 6.0D);
-        if (hit == null || hit.typeOfHit != RayTraceResult.Type.BLOCK) {
-            SpellArchives.LOGGER.chatWarnTrans(sender, "chat.spellarchives.look_at_archive");
-            return;
-        }
-
-        BlockPos pos = hit.getBlockPos();
-        World world = player.getEntityWorld();
-        TileEntity te = world.getTileEntity(pos);
-        if (!(te instanceof TileSpellArchive)) {
-            SpellArchives.LOGGER.chatErrorTrans(sender, "chat.spellarchives.not_archive");
-            return;
-        }
-        TileSpellArchive tile = (TileSpellArchive) te;
+        TileSpellArchive tile = findTargetArchive(sender);
+        if (tile == null) return;
 
         int addedTypes = 0;
         long totalBooksRequested = 0;
@@ -101,76 +89,82 @@ public class CommandArchives extends CommandBase {
             allSpells = allSpells.subList(0, typesCount);
         }
 
-        for (Spell spell : allSpells) {
-            if (spell == null) continue;
+        try (ArchiveTransaction tx = tile.beginTransaction()) {
+            for (Spell spell : allSpells) {
+                if (spell == null) continue;
 
-            Integer meta = spell.metadata();
-            if (meta == -1) continue; // Not registered
+                // The catalog maps each registered spell to its owning mod's spell book
+                SpellInfo info = SpellCatalog.infoFor(spell);
+                if (info == null) continue; // Not registered or no book
 
-            // Choose the correct spell book item for the spell's owning mod
-            Item spellBookItem = tile.getSpellBookForModPublic(spell);
-            if (spellBookItem == null) continue;
+                ItemStack book = SpellKeyIndex.prototypeOf(info.getOrdinal());
 
-            ItemStack book = new ItemStack(spellBookItem, 1, meta.intValue());
-            totalBooksRequested += count;
-            ItemStack remaining = tile.addBooks(book, count);
-            if (remaining != book) {
-                addedTypes++;
-                totalBooksAdded += (count - remaining.getCount());
+                totalBooksRequested += count;
+                ItemStack remaining = tx.insert(book, count);
+                if (remaining != book) {
+                    addedTypes++;
+                    totalBooksAdded += (count - remaining.getCount());
+                }
             }
         }
 
         SpellArchives.LOGGER.chatSuccessTrans(sender, "chat.spellarchives.filled_summary", addedTypes, totalBooksAdded, totalBooksRequested);
     }
 
-    // Scans the item registry and builds a map from modid -> ItemSpellBook instance for that mod.
-    // Prefers items whose path contains "spell_book" when multiple exist.
-    private Map<String, Item> buildSpellBookItemIndex() {
-        Map<String, Item> map = new HashMap<>();
+    // Prints the archive's aggregates (types, total, per-tier and per-element totals)
+    private void executeStats(ICommandSender sender) {
+        TileSpellArchive tile = findTargetArchive(sender);
+        if (tile == null) return;
 
-        // First pass: record any ItemSpellBook per modid
-        for (ResourceLocation rl : Item.REGISTRY.getKeys()) {
-            Item item = Item.REGISTRY.getObject(rl);
-            if (!(item instanceof ItemSpellBook)) continue;
+        ArchiveStats stats = tile.getStats();
+        SpellArchives.LOGGER.chatInfoTrans(sender, "chat.spellarchives.stats_summary", stats.getDistinctTypes(), TextUtils.formatCompactCount(stats.getTotalBooks()));
 
-            String modid = getNamespaceSafe(rl);
-            Item current = map.get(modid);
-
-            // Prefer paths that explicitly contain "spell_book"
-            if (current == null || getPathSafe(rl).contains("spell_book")) {
-                map.put(modid, item);
-            }
+        for (Tier tier : Tier.values()) {
+            long total = stats.getTierTotal(tier.ordinal());
+            if (total > 0) SpellArchives.LOGGER.chatInfoTrans(sender, "chat.spellarchives.stats_tier", tier.name().toLowerCase(), TextUtils.formatCompactCount(total));
         }
 
-        // Ensure default ebwizardry book is present if available
-        Item eb = Item.REGISTRY.getObject(new ResourceLocation("ebwizardry", "spell_book"));
-        if (eb instanceof ItemSpellBook) map.put("ebwizardry", eb);
+        for (Element element : Element.values()) {
+            long total = stats.getElementTotal(element.ordinal());
+            if (total > 0) SpellArchives.LOGGER.chatInfoTrans(sender, "chat.spellarchives.stats_element", element.name().toLowerCase(), TextUtils.formatCompactCount(total));
+        }
 
-        return map;
+        if (SpellArchivesConfig.getAutomationOpsPerTick() > 0 || SpellArchivesConfig.getAutomationItemsPerTick() > 0) {
+            SpellArchives.LOGGER.chatInfoTrans(sender, "chat.spellarchives.stats_budget", tile.getBudgetRefusedOps(), tile.getBudgetLimitedTicks());
+        }
     }
 
-    // Fallback-safe namespace extraction that works across mappings
-    private static String getNamespaceSafe(ResourceLocation rl) {
-        if (rl == null) return "";
-
-        String s = rl.toString(); // format: namespace:path
-        int i = s.indexOf(':');
-
-        return i >= 0 ? s.substring(0, i) : "";
-    }
+    // Resolves the archive the sending player is looking at, reporting why if there is none
+    private static TileSpellArchive findTargetArchive(ICommandSender sender) {
+        // Sender must be a player to ray trace what they're looking at
+        Entity entity = sender.getCommandSenderEntity();
+        if (!(entity instanceof EntityPlayerMP)) {
+            SpellArchives.LOGGER.chatErrorTrans(sender, "chat.spellarchives.player_only");
+            return null;
+        }
+        EntityPlayerMP player = (EntityPlayerMP) entity;
 
-    private static String getPathSafe(ResourceLocation rl) {
-        if (rl == null) return "";
+        // Ray trace to find the block the player is looking at
+        RayTraceResult hit = rayTrace(player, 6.0D);
+        if (hit == null || hit.typeOfHit != RayTraceResult.Type.BLOCK) {
+            SpellArchives.LOGGER.chatWarnTrans(sender, "chat.spellarchives.look_at_archive");
+            return null;
+        }
 
-        String s = rl.toString();
-        int i = s.indexOf(':');
+        BlockPos pos = hit.getBlockPos();
+        World world = player.getEntityWorld();
+        TileEntity te = world.getTileEntity(pos);
+        if (!(te instanceof TileSpellArchive)) {
+            SpellArchives.LOGGER.chatErrorTrans(sender, "chat.spellarchives.not_archive");
+            return null;
+        }
 
-        return i >= 0 ? s.substring(i + 1) : s;
+        return (TileSpellArchive) te;
     }
 
     @Override
     public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, BlockPos targetPos) {
-        if (args.length == 1) return getListOfStringsMatchingLastWord(args, Collections.singletonList("fill"));
+        if (args.length == 1) return getListOfStringsMatchingLastWord(args, Arrays.asList("fill", "stats"));
 
         // Suggest arguments for "fill" subcommand
         if (args.length > 0 && "fill".equalsIgnoreCase(args[0])) {
@@ -19,11 +19,25 @@ public final class SpellArchivesConfig extends BaseConfig {
     private static final String KEY_SCROLL_RESERVE_ENABLED = "scroll_reserve_enabled";
     private static final String KEY_SCROLL_RESERVE_MAX = "scroll_reserve_max";
     private static final String KEY_AUTO_PICKUP_ENABLED = "auto_pickup_enabled";
+    private static final String KEY_COALESCE_UPDATES = "coalesce_updates";
+    private static final String KEY_SPARSE_SLOT_VIEW = "sparse_slot_view";
+    private static final String KEY_AUTOMATION_OPS_PER_TICK = "automation_ops_per_tick";
+    private static final String KEY_AUTOMATION_ITEMS_PER_TICK = "automation_items_per_tick";
+    private static final String KEY_IO_BATCH_SIZE = "io_batch_size";
+    private static final String KEY_IO_MIN_INTERVAL = "io_min_interval";
+    private static final String KEY_IO_MAX_INTERVAL = "io_max_interval";
 
     // Backing value with a sensible default (enabled by default)
     private static boolean scrollReserveEnabled = true;
     private static int scrollReserveMax = 2048;
     private static boolean autoPickupEnabled = true;
+    private static boolean coalesceUpdates = true;
+    private static boolean sparseSlotView = false;
+    private static int automationOpsPerTick = 0;
+    private static int automationItemsPerTick = 0;
+    private static int ioBatchSize = 64;
+    private static int ioMinInterval = 8;
+    private static int ioMaxInterval = 200;
 
     private SpellArchivesConfig() {
         super(new File(Loader.instance().getConfigDir(), "spellarchives.cfg"));
@@ -59,6 +73,51 @@ public final class SpellArchivesConfig extends BaseConfig {
             .get(CATEGORY, KEY_AUTO_PICKUP_ENABLED, true, I18n.translateToLocal("config.spellarchives." + KEY_AUTO_PICKUP_ENABLED))
             .setLanguageKey("config.spellarchives.auto_pickup_enabled")
             .getBoolean(true);
+
+        coalesceUpdates = config
+            .get(CATEGORY, KEY_COALESCE_UPDATES, true, I18n.translateToLocal("config.spellarchives." + KEY_COALESCE_UPDATES))
+            .setLanguageKey("config.spellarchives.coalesce_updates")
+            .getBoolean(true);
+
+        sparseSlotView = config
+            .get(CATEGORY, KEY_SPARSE_SLOT_VIEW, false, I18n.translateToLocal("config.spellarchives." + KEY_SPARSE_SLOT_VIEW))
+            .setLanguageKey("config.spellarchives.sparse_slot_view")
+            .getBoolean(false);
+
+        automationOpsPerTick = config
+            .get(CATEGORY, KEY_AUTOMATION_OPS_PER_TICK, 0, I18n.translateToLocal("config.spellarchives." + KEY_AUTOMATION_OPS_PER_TICK))
+            .setLanguageKey("config.spellarchives.automation_ops_per_tick")
+            .setMinValue(0)
+            .setMaxValue(Integer.MAX_VALUE)
+            .getInt(0);
+
+        automationItemsPerTick = config
+            .get(CATEGORY, KEY_AUTOMATION_ITEMS_PER_TICK, 0, I18n.translateToLocal("config.spellarchives." + KEY_AUTOMATION_ITEMS_PER_TICK))
+            .setLanguageKey("config.spellarchives.automation_items_per_tick")
+            .setMinValue(0)
+            .setMaxValue(Integer.MAX_VALUE)
+            .getInt(0);
+
+        ioBatchSize = config
+            .get(CATEGORY, KEY_IO_BATCH_SIZE, 64, I18n.translateToLocal("config.spellarchives." + KEY_IO_BATCH_SIZE))
+            .setLanguageKey("config.spellarchives.io_batch_size")
+            .setMinValue(1)
+            .setMaxValue(Integer.MAX_VALUE)
+            .getInt(64);
+
+        ioMinInterval = config
+            .get(CATEGORY, KEY_IO_MIN_INTERVAL, 8, I18n.translateToLocal("config.spellarchives." + KEY_IO_MIN_INTERVAL))
+            .setLanguageKey("config.spellarchives.io_min_interval")
+            .setMinValue(1)
+            .setMaxValue(72000)
+            .getInt(8);
+
+        ioMaxInterval = config
+            .get(CATEGORY, KEY_IO_MAX_INTERVAL, 200, I18n.translateToLocal("config.spellarchives." + KEY_IO_MAX_INTERVAL))
+            .setLanguageKey("config.spellarchives.io_max_interval")
+            .setMinValue(1)
+            .setMaxValue(72000)
+            .getInt(200);
     }
 
     /**
@@ -87,6 +146,59 @@ public final class SpellArchivesConfig extends BaseConfig {
         return autoPickupEnabled;
     }
 
+    /**
+     * Returns whether archive change notifications (save marking, client sync, comparators) are
+     * deferred and flushed once per server tick instead of after every single operation.
+     */
+    public static boolean isCoalescedUpdatesEnabled() {
+        return coalesceUpdates;
+    }
+
+    /**
+     * Returns whether the item handler capability lists only non-empty spell types (plus the
+     * insertion slot) instead of the stable slot layout that keeps emptied types until compaction.
+     */
+    public static boolean isSparseSlotViewEnabled() {
+        return sparseSlotView;
+    }
+
+    /**
+     * Returns the number of automation insert/extract calls (simulated ones included) each archive
+     * serves per tick; 0 means unlimited.
+     */
+    public static int getAutomationOpsPerTick() {
+        return automationOpsPerTick;
+    }
+
+    /**
+     * Returns the number of items automation may move into or out of each archive per tick;
+     * 0 means unlimited.
+     */
+    public static int getAutomationItemsPerTick() {
+        return automationItemsPerTick;
+    }
+
+    /**
+     * Returns the maximum number of items an archive's export bus or import moves per run.
+     */
+    public static int getIoBatchSize() {
+        return ioBatchSize;
+    }
+
+    /**
+     * Returns the delay in ticks between export/import runs while items are being moved.
+     */
+    public static int getIoMinInterval() {
+        return ioMinInterval;
+    }
+
+    /**
+     * Returns the longest delay in ticks export/import backs off to while idle or blocked.
+     */
+    public static int getIoMaxInterval() {
+        return ioMaxInterval;
+    }
+
     /**
      * Expose the underlying Forge Configuration so the mod config GUI can show
      * global (server/gameplay) settings alongside client GUI options.
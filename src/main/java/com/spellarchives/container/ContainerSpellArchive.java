@@ -1,6 +1,7 @@
 package com.spellarchives.container;
 
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.entity.player.InventoryPlayer;
 import net.minecraft.inventory.Container;
 import net.minecraft.inventory.IContainerListener;
@@ -12,6 +13,8 @@ import com.spellarchives.tile.TileSpellArchive;
 /**
  * Server-side container for the Spellcaster's Archives GUI. No slots are exposed since the
  * backing storage is aggregated and accessed via capability calls and network messages.
+ * Players listening to this container are registered as viewers on the tile, which streams the
+ * full contents only to them.
  */
 public class ContainerSpellArchive extends Container {
     private final TileSpellArchive tile;
@@ -26,6 +29,38 @@ public class ContainerSpellArchive extends Container {
         this.tile = tile;
     }
 
+    /**
+     * @return The archive this container is bound to.
+     */
+    public TileSpellArchive getTile() {
+        return tile;
+    }
+
+    /**
+     * Registers the listening player as a content viewer of the archive (server side), which
+     * sends it a full snapshot followed by per-tick deltas.
+     *
+     * @param listener The listener being added.
+     */
+    @Override
+    public void addListener(IContainerListener listener) {
+        super.addListener(listener);
+
+        if (listener instanceof EntityPlayerMP && tile != null) tile.addViewer((EntityPlayerMP) listener);
+    }
+
+    /**
+     * Unregisters the player as a content viewer when the GUI is closed.
+     *
+     * @param playerIn The player closing the container.
+     */
+    @Override
+    public void onContainerClosed(EntityPlayer playerIn) {
+        super.onContainerClosed(playerIn);
+
+        if (playerIn instanceof EntityPlayerMP && tile != null) tile.removeViewer((EntityPlayerMP) playerIn);
+    }
+
     /**
      * Allows interaction while the correct tile remains at the expected position and the
      * player is within 8 blocks (64 distance squared).
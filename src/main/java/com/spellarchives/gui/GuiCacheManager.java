@@ -8,6 +8,7 @@ import java.util.Set;
 
 import com.spellarchives.gui.GuiSpellArchive;
 import com.spellarchives.gui.SpellPresentation;
+import com.spellarchives.tile.SpellKey;
 
 
 /**
@@ -16,14 +17,14 @@ import com.spellarchives.gui.SpellPresentation;
  * or when the snapshot keys / grid columns change.
  */
 public final class GuiCacheManager {
-    private Set<String> lastKeys = new HashSet<>();
+    private Set<SpellKey> lastKeys = new HashSet<>();
     private GuiSpellArchive.DisplayRows cachedDisplayRows = null;
     private List<GuiSpellArchive.PageInfo> allCachedPages = null;
 
     // GUI instance helpers
     private GuiSpellArchive.BookEntry hoveredEntry = null;
     private SpellPresentation cachedPresentationObj = null;
-    private String cachedPresentationKey = null;
+    private SpellKey cachedPresentationKey = null;
     private GuiSpellArchive.GridGeometry cachedGG = null;
 
     private int cachedGridColsForDisplay = -1;
@@ -65,17 +66,17 @@ public final class GuiCacheManager {
         return this.hoveredEntry;
     }
 
-    public SpellPresentation getCachedPresentation(String key, int count) {
+    public SpellPresentation getCachedPresentation(SpellKey key, int count) {
         if (this.cachedPresentationObj == null) return null;
 
         // simple match by equality on previously cached key/counter encoded in headerName and count
         // We store presentation only for the current hovered; if mismatch return null
-        if (this.cachedPresentationKey != null && this.cachedPresentationKey.equals(key) && this.cachedPresentationObj.count == count) return this.cachedPresentationObj;
+        if (this.cachedPresentationKey != null && this.cachedPresentationKey == key && this.cachedPresentationObj.count == count) return this.cachedPresentationObj;
 
         return null;
     }
 
-    public void putCachedPresentation(String key, SpellPresentation p) {
+    public void putCachedPresentation(SpellKey key, SpellPresentation p) {
         this.cachedPresentationKey = key;
         this.cachedPresentationObj = p;
     }
@@ -93,7 +94,7 @@ public final class GuiCacheManager {
         this.cachedGG = gg;
     }
 
-    public boolean haveKeysChanged(Set<String> keys) {
+    public boolean haveKeysChanged(Set<SpellKey> keys) {
         return !keys.equals(this.lastKeys);
     }
 
@@ -101,7 +102,7 @@ public final class GuiCacheManager {
         return this.cachedGridColsForDisplay != gridCols;
     }
 
-    public GuiSpellArchive.DisplayRows getOrBuildDisplayRows(Set<String> snapshotKeys, Map<Integer, List<GuiSpellArchive.BookEntry>> rowsByTier, int gridCols) {
+    public GuiSpellArchive.DisplayRows getOrBuildDisplayRows(Set<SpellKey> snapshotKeys, Map<Integer, List<GuiSpellArchive.BookEntry>> rowsByTier, int gridCols) {
         boolean keysChanged = !snapshotKeys.equals(this.lastKeys);
         boolean colsChanged = (this.cachedGridColsForDisplay != gridCols);
 
@@ -3,6 +3,7 @@ package com.spellarchives.gui;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -27,11 +28,13 @@ import net.minecraft.client.resources.I18n;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.TextFormatting;
 
 import com.spellarchives.container.ContainerSpellArchive;
 import com.spellarchives.config.ClientConfig;
+import com.spellarchives.network.MessageArchiveIoSettings;
 import com.spellarchives.network.MessageExtractBook;
 import com.spellarchives.network.NetworkHandler;
 import com.spellarchives.network.MessageDepositScrolls;
@@ -40,6 +43,10 @@ import com.spellarchives.network.MessageDiscoverSpell;
 import com.spellarchives.config.SpellArchivesConfig;
 import com.spellarchives.client.DynamicTextureFactory;
 import com.spellarchives.util.TextUtils;
+import com.spellarchives.tile.ArchiveSnapshot;
+import com.spellarchives.tile.ArchiveFaceMode;
+import com.spellarchives.tile.ComparatorMetric;
+import com.spellarchives.tile.SpellKey;
 import com.spellarchives.tile.TileSpellArchive;
 
 import electroblob.wizardry.Wizardry;
@@ -67,6 +74,11 @@ public class GuiSpellArchive extends GuiContainer {
     private RightPanelRenderer rightPanelRenderer;
     private DropdownWidget<DiscoveryFilter> discoveryDropdown;
     private DropdownWidget<String> modsDropdown;
+    private DropdownWidget<Integer> exportDropdown;
+    private DropdownWidget<Integer> keepDropdown;
+    private DropdownWidget<Integer> importDropdown;
+    private DropdownWidget<ComparatorMetric> comparatorDropdown;
+    private DropdownWidget<Integer> facesDropdown;
     private SearchFilterWidget searchWidget;
 
     // Current page index (0-based)
@@ -84,6 +96,15 @@ public class GuiSpellArchive extends GuiContainer {
     private static final int FILTERS_TOP_MARGIN = 2;
     // Reserved space below the filters
     private static final int FILTERS_BOTTOM_GAP = 3;
+    // Gap between the filter row and the I/O settings row
+    private static final int FILTERS_ROW_GAP = 2;
+
+    // Export bus / import face choices: -1 = off, otherwise an EnumFacing index
+    private static final List<Integer> EXPORT_FACE_OPTIONS = Arrays.asList(-1, 0, 1, 2, 3, 4, 5);
+    // Faces listed by the face mode dropdown, as EnumFacing indices
+    private static final List<Integer> FACE_OPTIONS = Arrays.asList(0, 1, 2, 3, 4, 5);
+    // Books of each type the export bus keeps back
+    private static final List<Integer> EXPORT_KEEP_OPTIONS = Arrays.asList(0, 1, 4, 16, 64);
 
     private enum DiscoveryFilter {
         ALL,
@@ -109,7 +130,7 @@ public class GuiSpellArchive extends GuiContainer {
     private int pendingTipX = 0, pendingTipY = 0;
 
     // Filter state and caches
-    private final Map<String, Integer> filteredSnapshot = new LinkedHashMap<>();
+    private final Map<SpellKey, Integer> filteredSnapshot = new LinkedHashMap<>();
     private final List<String> availableModOptions = new ArrayList<>();
     private final Set<String> selectedModFilters = new LinkedHashSet<>();
     private boolean modFilterTouched = false;
@@ -284,6 +305,46 @@ public class GuiSpellArchive extends GuiContainer {
             onFiltersChanged();
         });
 
+        exportDropdown = new DropdownWidget<>(mc, fontRenderer, getExportFaceLabel(faceIndexOf(tile.getExportFace())));
+        exportDropdown.setHeaderScale(FILTER_HEADER_SCALE);
+        exportDropdown.setOptionScale(FILTER_CONTENT_SCALE);
+        exportDropdown.setOptions(EXPORT_FACE_OPTIONS);
+        exportDropdown.setOptionProvider(this::getExportFaceLabel);
+        exportDropdown.setOnSelect(face -> sendIoSettings(face >= 0 ? EnumFacing.byIndex(face) : null, tile.getExportKeep(), tile.getExportFilter(), tile.getImportFace(), tile.getComparatorMetric(), tile.getComparatorFilter(), tile.getFaceModes()));
+
+        keepDropdown = new DropdownWidget<>(mc, fontRenderer, I18n.format("gui.spellarchives.export.keep", tile.getExportKeep()));
+        keepDropdown.setHeaderScale(FILTER_HEADER_SCALE);
+        keepDropdown.setOptionScale(FILTER_CONTENT_SCALE);
+        keepDropdown.setOptions(EXPORT_KEEP_OPTIONS);
+        keepDropdown.setOptionProvider(keep -> I18n.format("gui.spellarchives.export.keep", keep));
+        keepDropdown.setOnSelect(keep -> sendIoSettings(tile.getExportFace(), keep, tile.getExportFilter(), tile.getImportFace(), tile.getComparatorMetric(), tile.getComparatorFilter(), tile.getFaceModes()));
+
+        importDropdown = new DropdownWidget<>(mc, fontRenderer, getImportFaceLabel(faceIndexOf(tile.getImportFace())));
+        importDropdown.setHeaderScale(FILTER_HEADER_SCALE);
+        importDropdown.setOptionScale(FILTER_CONTENT_SCALE);
+        importDropdown.setOptions(EXPORT_FACE_OPTIONS);
+        importDropdown.setOptionProvider(this::getImportFaceLabel);
+        importDropdown.setOnSelect(face -> sendIoSettings(tile.getExportFace(), tile.getExportKeep(), tile.getExportFilter(), face >= 0 ? EnumFacing.byIndex(face) : null, tile.getComparatorMetric(), tile.getComparatorFilter(), tile.getFaceModes()));
+
+        comparatorDropdown = new DropdownWidget<>(mc, fontRenderer, getComparatorLabel(tile.getComparatorMetric()));
+        comparatorDropdown.setHeaderScale(FILTER_HEADER_SCALE);
+        comparatorDropdown.setOptionScale(FILTER_CONTENT_SCALE);
+        comparatorDropdown.setOptions(Arrays.asList(ComparatorMetric.values()));
+        comparatorDropdown.setOptionProvider(this::getComparatorLabel);
+        comparatorDropdown.setOnSelect(metric -> sendIoSettings(tile.getExportFace(), tile.getExportKeep(), tile.getExportFilter(), tile.getImportFace(), metric, tile.getComparatorFilter(), tile.getFaceModes()));
+
+        // Picking a face advances it to the next automation mode
+        facesDropdown = new DropdownWidget<>(mc, fontRenderer, I18n.format("gui.spellarchives.faces"));
+        facesDropdown.setHeaderScale(FILTER_HEADER_SCALE);
+        facesDropdown.setOptionScale(FILTER_CONTENT_SCALE);
+        facesDropdown.setOptions(FACE_OPTIONS);
+        facesDropdown.setOptionProvider(this::getFaceModeLabel);
+        facesDropdown.setOnSelect(face -> {
+            ArchiveFaceMode[] modes = tile.getFaceModes();
+            modes[face] = modes[face].next();
+            sendIoSettings(tile.getExportFace(), tile.getExportKeep(), tile.getExportFilter(), tile.getImportFace(), tile.getComparatorMetric(), tile.getComparatorFilter(), modes);
+        });
+
         // Reset easy layout cache on resize/init
         cachedEasyWidth = -1;
 
@@ -317,16 +378,18 @@ public class GuiSpellArchive extends GuiContainer {
         boolean creative = player != null && player.capabilities != null && player.capabilities.isCreativeMode;
         boolean discoveryDisabled = !Wizardry.settings.discoveryMode;
 
-        for (Map.Entry<String, Integer> e : tile.getSnapshot().entrySet()) {
-            if (e.getValue() <= 0) continue;
+        ArchiveSnapshot snapshot = tile.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            SpellKey key = snapshot.keyAt(i);
+            int count = snapshot.countAt(i);
 
-            ItemStack stack = tile.stackFromKeyPublic(e.getKey());
+            ItemStack stack = tile.stackFromKeyPublic(key);
             if (stack.isEmpty()) continue;
 
             Spell spell = tile.getSpellPublic(stack);
-            String modId = getModId(stack);
+            String modId = tile.getModIdOf(stack);
             boolean discovered = isSpellDiscoveredForFilters(spell, data, creative, discoveryDisabled);
-            BookEntry entry = new BookEntry(stack, e.getValue(), tile.getTierOf(stack), tile.getElementOf(stack),
+            BookEntry entry = new BookEntry(stack, count, tile.getTierOf(stack), tile.getElementOf(stack),
                     tile.getRarityColor(stack), tile.getElementColor(stack), discovered, modId, spell);
 
             unfilteredEntries.add(entry);
@@ -334,7 +397,7 @@ public class GuiSpellArchive extends GuiContainer {
             if (!passesDiscoveryFilter(entry) || !passesModFilter(entry) || !passesNameFilter(entry)) continue;
 
             entries.add(entry);
-            filteredSnapshot.put(e.getKey(), e.getValue());
+            filteredSnapshot.put(key, count);
 
             // Build suggestions list from discovered spells.
             if (entry.discovered) {
@@ -428,11 +491,6 @@ public class GuiSpellArchive extends GuiContainer {
         return data != null && data.hasSpellBeenDiscovered(spell);
     }
 
-    private String getModId(ItemStack stack) {
-        ResourceLocation rl = stack.getItem().getRegistryName();
-        return rl != null ? rl.getNamespace() : "unknown";
-    }
-
     private void onFiltersChanged() {
         page = 0;
         cacheManager.clearAll();
@@ -603,9 +661,8 @@ public class GuiSpellArchive extends GuiContainer {
         if (prevHovered == null) hoveredChanged = (hovered != null);
         else if (hovered == null) hoveredChanged = true;
         else {
-            String prevKey = tile.keyOfPublic(prevHovered.stack);
-            String newKey = tile.keyOfPublic(hovered.stack);
-            hoveredChanged = !prevKey.equals(newKey);
+            // Keys are interned, so identity comparison is exact
+            hoveredChanged = tile.keyOfPublic(prevHovered.stack) != tile.keyOfPublic(hovered.stack);
         }
 
         if (hoveredChanged) cacheManager.clearCachedPresentation();
@@ -624,11 +681,17 @@ public class GuiSpellArchive extends GuiContainer {
             searchWidget.draw(mouseX, mouseY, partialTicks);
         }
 
+        // Settings row first so the open lists of the filter row above draw over it
+        exportDropdown.draw(mouseX, mouseY, partialTicks);
+        keepDropdown.draw(mouseX, mouseY, partialTicks);
+        importDropdown.draw(mouseX, mouseY, partialTicks);
+        comparatorDropdown.draw(mouseX, mouseY, partialTicks);
+        facesDropdown.draw(mouseX, mouseY, partialTicks);
         discoveryDropdown.draw(mouseX, mouseY, partialTicks);
         modsDropdown.draw(mouseX, mouseY, partialTicks);
     }
 
-    private Set<String> getSnapshotKeys() {
+    private Set<SpellKey> getSnapshotKeys() {
         return new HashSet<>(filteredSnapshot.keySet());
     }
 
@@ -893,7 +956,7 @@ public class GuiSpellArchive extends GuiContainer {
         int bottomBar = ClientConfig.BOTTOM_BAR_HEIGHT;
         updateFilterLayout();
 
-        int reservedTop = discoveryDropdown.getHeaderHeight() + FILTERS_BOTTOM_GAP;
+        int reservedTop = discoveryDropdown.getHeaderHeight() + FILTERS_ROW_GAP + exportDropdown.getHeaderHeight() + FILTERS_BOTTOM_GAP;
         int gridX = leftPanelX + ClientConfig.GRID_INNER_PADDING;
         int gridY = leftPanelY + 8 + reservedTop;
         int gridW = leftPanelW - ClientConfig.GRID_INNER_PADDING * 2;
@@ -921,6 +984,61 @@ public class GuiSpellArchive extends GuiContainer {
         modsDropdown.setBounds(filterBarX + discoveryWidth + FILTER_HEADER_GAP, filterBarY, modsWidth, modsDropdown.getHeaderHeight());
         modsDropdown.setOptions(availableModOptions);
         modsDropdown.setSelectedOptions(new ArrayList<>(selectedModFilters));
+
+        // Second row: export face, keep amount, import face, comparator metric and face modes, split evenly.
+        // The settings come from the tile (synced by the server), so refresh the labels every layout
+        int ioY = filterBarY + discoveryDropdown.getHeaderHeight() + FILTERS_ROW_GAP;
+        int ioW = Math.max(0, (filterBarW - FILTER_HEADER_GAP * 4) / 5);
+        int lastW = Math.max(0, filterBarW - (ioW + FILTER_HEADER_GAP) * 4);
+
+        int exportFace = faceIndexOf(tile.getExportFace());
+        exportDropdown.setBounds(filterBarX, ioY, ioW, exportDropdown.getHeaderHeight());
+        exportDropdown.setSelected(exportFace);
+        exportDropdown.setLabel(getExportFaceLabel(exportFace));
+
+        keepDropdown.setBounds(filterBarX + ioW + FILTER_HEADER_GAP, ioY, ioW, keepDropdown.getHeaderHeight());
+        keepDropdown.setSelected(tile.getExportKeep());
+        keepDropdown.setLabel(I18n.format("gui.spellarchives.export.keep", tile.getExportKeep()));
+
+        int importFace = faceIndexOf(tile.getImportFace());
+        importDropdown.setBounds(filterBarX + (ioW + FILTER_HEADER_GAP) * 2, ioY, ioW, importDropdown.getHeaderHeight());
+        importDropdown.setSelected(importFace);
+        importDropdown.setLabel(getImportFaceLabel(importFace));
+
+        comparatorDropdown.setBounds(filterBarX + (ioW + FILTER_HEADER_GAP) * 3, ioY, ioW, comparatorDropdown.getHeaderHeight());
+        comparatorDropdown.setSelected(tile.getComparatorMetric());
+        comparatorDropdown.setLabel(getComparatorLabel(tile.getComparatorMetric()));
+
+        facesDropdown.setBounds(filterBarX + (ioW + FILTER_HEADER_GAP) * 4, ioY, lastW, facesDropdown.getHeaderHeight());
+    }
+
+    private static int faceIndexOf(EnumFacing face) {
+        return face != null ? face.getIndex() : -1;
+    }
+
+    private String getExportFaceLabel(int face) {
+        if (face < 0) return I18n.format("gui.spellarchives.export.off");
+
+        return I18n.format("gui.spellarchives.export.face", I18n.format("gui.spellarchives.face." + EnumFacing.byIndex(face).getName()));
+    }
+
+    private String getImportFaceLabel(int face) {
+        if (face < 0) return I18n.format("gui.spellarchives.import.off");
+
+        return I18n.format("gui.spellarchives.import.face", I18n.format("gui.spellarchives.face." + EnumFacing.byIndex(face).getName()));
+    }
+
+    private String getComparatorLabel(ComparatorMetric metric) {
+        return I18n.format("gui.spellarchives.comparator", I18n.format(metric.getTranslationKey()));
+    }
+
+    private String getFaceModeLabel(int face) {
+        return I18n.format("gui.spellarchives.face_mode", I18n.format("gui.spellarchives.face." + EnumFacing.byIndex(face).getName()),
+            I18n.format(tile.getFaceModes()[face].getTranslationKey()));
+    }
+
+    private void sendIoSettings(EnumFacing face, int keep, Collection<SpellKey> filter, EnumFacing importFace, ComparatorMetric metric, Collection<SpellKey> watched, ArchiveFaceMode[] modes) {
+        NetworkHandler.CHANNEL.sendToServer(new MessageArchiveIoSettings(tile.getPos(), face, keep, new ArrayList<>(filter), importFace, metric, new ArrayList<>(watched), modes));
     }
 
     private String getDiscoveryOptionKey(DiscoveryFilter filter) {
@@ -960,6 +1078,11 @@ public class GuiSpellArchive extends GuiContainer {
     protected void mouseClicked(int mouseX, int mouseY, int mouseButton) throws IOException {
         if (discoveryDropdown.mouseClicked(mouseX, mouseY, mouseButton)) return;
         if (modsDropdown.mouseClicked(mouseX, mouseY, mouseButton)) return;
+        if (exportDropdown.mouseClicked(mouseX, mouseY, mouseButton)) return;
+        if (keepDropdown.mouseClicked(mouseX, mouseY, mouseButton)) return;
+        if (importDropdown.mouseClicked(mouseX, mouseY, mouseButton)) return;
+        if (comparatorDropdown.mouseClicked(mouseX, mouseY, mouseButton)) return;
+        if (facesDropdown.mouseClicked(mouseX, mouseY, mouseButton)) return;
         if (searchWidget != null && searchWidget.mouseClicked(mouseX, mouseY, mouseButton)) return;
 
         super.mouseClicked(mouseX, mouseY, mouseButton);
@@ -968,7 +1091,8 @@ public class GuiSpellArchive extends GuiContainer {
         GuiSpellArchive.BookEntry hovered = cacheManager.getHoveredEntry();
         if (hovered == null || this.mc == null || this.mc.player == null) return;
 
-        String key = tile.keyOfPublic(hovered.stack);
+        SpellKey key = tile.keyOfPublic(hovered.stack);
+        if (key == null) return;
 
         if (mouseButton == 1) {
             // Right click: attempt discovery if undiscovered
@@ -982,6 +1106,17 @@ public class GuiSpellArchive extends GuiContainer {
                     NetworkHandler.CHANNEL.sendToServer(new MessageDiscoverSpell(tile.getPos(), key));
                 }
             }
+        } else if (mouseButton == 2) {
+            // Middle click: toggle the type in the export selection; with shift, in the comparator's
+            if (isShiftKeyDown()) {
+                Set<SpellKey> watched = new LinkedHashSet<>(tile.getComparatorFilter());
+                if (!watched.remove(key)) watched.add(key);
+                sendIoSettings(tile.getExportFace(), tile.getExportKeep(), tile.getExportFilter(), tile.getImportFace(), tile.getComparatorMetric(), watched, tile.getFaceModes());
+            } else {
+                Set<SpellKey> filter = new LinkedHashSet<>(tile.getExportFilter());
+                if (!filter.remove(key)) filter.add(key);
+                sendIoSettings(tile.getExportFace(), tile.getExportKeep(), filter, tile.getImportFace(), tile.getComparatorMetric(), tile.getComparatorFilter(), tile.getFaceModes());
+            }
         } else if (mouseButton == 0) {
             // Left click: extract (stack if shift)
             boolean shift = isShiftKeyDown();
@@ -33,6 +33,11 @@ import com.spellarchives.util.TextUtils;
 
 
 public class LeftPanelRenderer {
+    // Marker drawn on spines selected for the export bus
+    private static final int EXPORT_MARKER_COLOR = 0xFFFFD700;
+    // Marker drawn on spines counted by the comparator's "selected" metric
+    private static final int COMPARATOR_MARKER_COLOR = 0xFFD02020;
+
     private final GuiSpellArchive gui;
     private final Minecraft mc;
     private final FontRenderer fontRenderer;
@@ -66,6 +71,16 @@ public class LeftPanelRenderer {
 
                 renderBookSpine(b, x, y, cellW, cellH);
 
+                // Types selected for the export bus get a marker across the top of the spine
+                if (gui.getTile().getExportFilter().contains(gui.getTile().keyOfPublic(b.stack))) {
+                    Gui.drawRect(x + ClientConfig.SPINE_LEFT_BORDER, y, x + cellW + ClientConfig.SPINE_LEFT_BORDER, y + 2, EXPORT_MARKER_COLOR);
+                }
+
+                // Types the comparator watches get one across the bottom
+                if (gui.getTile().getComparatorFilter().contains(gui.getTile().keyOfPublic(b.stack))) {
+                    Gui.drawRect(x + ClientConfig.SPINE_LEFT_BORDER, y + cellH - 2, x + cellW + ClientConfig.SPINE_LEFT_BORDER, y + cellH, COMPARATOR_MARKER_COLOR);
+                }
+
                 BookEntry entry = null;
                 if (mouseX >= x && mouseX < x + cellW + ClientConfig.SPINE_LEFT_BORDER && mouseY >= y && mouseY < y + cellH) {
                     entry = b;
@@ -27,6 +27,7 @@ import com.spellarchives.config.SpellArchivesConfig;
 import com.spellarchives.gui.GuiSpellArchive.BookEntry;
 import com.spellarchives.gui.SpellPresentation;
 import com.spellarchives.gui.widget.InstructionWidget;
+import com.spellarchives.tile.SpellKey;
 import com.spellarchives.tile.TileSpellArchive;
 import com.spellarchives.util.TextUtils;
 
@@ -54,9 +55,8 @@ public class RightPanelRenderer {
             return;
         }
 
-        String key = gui.getTile().keyOfPublic(hovered.stack);
-        Integer live = gui.getTile().getSnapshot().get(key);
-        int liveCount = live == null ? 0 : live.intValue();
+        SpellKey key = gui.getTile().keyOfPublic(hovered.stack);
+        int liveCount = gui.getTile().getCountFor(key);
 
         SpellPresentation p = gui.getCacheManager().getCachedPresentation(key, liveCount);
         if (p == null) {
@@ -236,6 +236,11 @@ public class RightPanelRenderer {
         instructionWidget.addInstruction(inst1);
         instructionWidget.addInstruction(inst2);
         if (inst3 != null && !inst3.isEmpty()) instructionWidget.addInstruction(inst3);
+        SpellKey key = gui.getTile().keyOfPublic(p.stack);
+        boolean exported = gui.getTile().getExportFilter().contains(key);
+        instructionWidget.addInstruction(I18n.format(exported ? "gui.spellarchives.inst.middle_export_remove" : "gui.spellarchives.inst.middle_export_add"));
+        boolean watched = gui.getTile().getComparatorFilter().contains(key);
+        instructionWidget.addInstruction(I18n.format(watched ? "gui.spellarchives.inst.shift_middle_comparator_remove" : "gui.spellarchives.inst.shift_middle_comparator_add"));
 
         instructionWidget.setColor(instColor);
         instructionWidget.setAlignBottom(true);
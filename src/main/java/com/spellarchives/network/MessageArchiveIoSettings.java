@@ -0,0 +1,173 @@
+package com.spellarchives.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import com.spellarchives.tile.ArchiveFaceMode;
+import com.spellarchives.tile.ComparatorMetric;
+import com.spellarchives.tile.SpellKey;
+import com.spellarchives.tile.TileSpellArchive;
+
+
+/**
+ * Active I/O settings (export bus, import face, comparator metric and selection, face modes) of an archive, sent in
+ * both directions: client->server when a viewer changes them in the GUI, server->client when the
+ * GUI opens and whenever they change. Spell types are sent as (item registry id, metadata)
+ * varints like {@link MessageArchiveSync}.
+ */
+public class MessageArchiveIoSettings implements IMessage {
+    private BlockPos pos;
+    private int exportFace;
+    private int exportKeep;
+    private int[] itemIds;
+    private int[] metas;
+    private int importFace;
+    private int comparatorMetric;
+    private int[] watchedIds;
+    private int[] watchedMetas;
+    private byte[] faceModes;
+
+    public MessageArchiveIoSettings() {}
+
+    public MessageArchiveIoSettings(BlockPos pos, EnumFacing exportFace, int exportKeep, List<SpellKey> exportFilter, EnumFacing importFace, ComparatorMetric comparatorMetric, List<SpellKey> comparatorFilter, ArchiveFaceMode[] faceModes) {
+        this.pos = pos;
+        this.exportFace = exportFace != null ? exportFace.getIndex() : -1;
+        this.exportKeep = exportKeep;
+        this.itemIds = new int[exportFilter.size()];
+        this.metas = new int[exportFilter.size()];
+        for (int i = 0; i < exportFilter.size(); i++) {
+            itemIds[i] = exportFilter.get(i).getItemId();
+            metas[i] = exportFilter.get(i).getMeta();
+        }
+        this.importFace = importFace != null ? importFace.getIndex() : -1;
+        this.comparatorMetric = comparatorMetric.ordinal();
+        this.watchedIds = new int[comparatorFilter.size()];
+        this.watchedMetas = new int[comparatorFilter.size()];
+        for (int i = 0; i < comparatorFilter.size(); i++) {
+            watchedIds[i] = comparatorFilter.get(i).getItemId();
+            watchedMetas[i] = comparatorFilter.get(i).getMeta();
+        }
+        this.faceModes = new byte[faceModes.length];
+        for (int i = 0; i < faceModes.length; i++) this.faceModes[i] = (byte) faceModes[i].ordinal();
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeLong(pos.toLong());
+        buf.writeByte(exportFace);
+        ByteBufUtils.writeVarInt(buf, exportKeep, 5);
+
+        ByteBufUtils.writeVarInt(buf, itemIds.length, 5);
+        writeKeys(buf, itemIds, metas);
+
+        buf.writeByte(importFace);
+        buf.writeByte(comparatorMetric);
+        ByteBufUtils.writeVarInt(buf, watchedIds.length, 5);
+        writeKeys(buf, watchedIds, watchedMetas);
+        buf.writeBytes(faceModes);
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        this.pos = BlockPos.fromLong(buf.readLong());
+        this.exportFace = buf.readByte();
+        this.exportKeep = ByteBufUtils.readVarInt(buf, 5);
+
+        int n = ByteBufUtils.readVarInt(buf, 5);
+        this.itemIds = new int[n];
+        this.metas = new int[n];
+        readKeys(buf, itemIds, metas);
+
+        this.importFace = buf.readByte();
+        this.comparatorMetric = buf.readByte();
+        int watched = ByteBufUtils.readVarInt(buf, 5);
+        this.watchedIds = new int[watched];
+        this.watchedMetas = new int[watched];
+        readKeys(buf, watchedIds, watchedMetas);
+        this.faceModes = new byte[EnumFacing.VALUES.length];
+        buf.readBytes(faceModes);
+    }
+
+    private static void writeKeys(ByteBuf buf, int[] ids, int[] metas) {
+        for (int i = 0; i < ids.length; i++) {
+            ByteBufUtils.writeVarInt(buf, ids[i], 5);
+            ByteBufUtils.writeVarInt(buf, metas[i], 5);
+        }
+    }
+
+    private static void readKeys(ByteBuf buf, int[] ids, int[] metas) {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ByteBufUtils.readVarInt(buf, 5);
+            metas[i] = ByteBufUtils.readVarInt(buf, 5);
+        }
+    }
+
+    private static List<SpellKey> keysOf(int[] ids, int[] metas) {
+        List<SpellKey> keys = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            SpellKey key = SpellKey.fromNetwork(ids[i], metas[i]);
+            if (key != null) keys.add(key);
+        }
+
+        return keys;
+    }
+
+    private static EnumFacing faceOf(int index) {
+        return index >= 0 && index < EnumFacing.VALUES.length ? EnumFacing.byIndex(index) : null;
+    }
+
+    private void applyTo(TileSpellArchive tile) {
+        ArchiveFaceMode[] modes = new ArchiveFaceMode[faceModes.length];
+        for (int i = 0; i < faceModes.length; i++) modes[i] = ArchiveFaceMode.byOrdinal(faceModes[i]);
+
+        tile.setIoSettings(faceOf(exportFace), exportKeep, keysOf(itemIds, metas), faceOf(importFace), ComparatorMetric.byOrdinal(comparatorMetric),
+            keysOf(watchedIds, watchedMetas), modes);
+    }
+
+    public static class Handler implements IMessageHandler<MessageArchiveIoSettings, IMessage> {
+        @Override
+        public IMessage onMessage(MessageArchiveIoSettings message, MessageContext ctx) {
+            if (ctx.side == Side.SERVER) {
+                EntityPlayerMP player = ctx.getServerHandler().player;
+                player.getServerWorld().addScheduledTask(() -> {
+                    if (player.world == null || !player.world.isBlockLoaded(message.pos)) return;
+
+                    TileEntity te = player.world.getTileEntity(message.pos);
+                    if (!(te instanceof TileSpellArchive)) return;
+
+                    // Only players with this archive's GUI open may reconfigure it
+                    TileSpellArchive tile = (TileSpellArchive) te;
+                    if (tile.isViewing(player)) message.applyTo(tile);
+                });
+            } else {
+                handleClient(message);
+            }
+
+            return null;
+        }
+
+        @SideOnly(Side.CLIENT)
+        private void handleClient(MessageArchiveIoSettings message) {
+            Minecraft.getMinecraft().addScheduledTask(() -> {
+                if (Minecraft.getMinecraft().world == null) return;
+
+                TileEntity te = Minecraft.getMinecraft().world.getTileEntity(message.pos);
+                if (te instanceof TileSpellArchive) message.applyTo((TileSpellArchive) te);
+            });
+        }
+    }
+}
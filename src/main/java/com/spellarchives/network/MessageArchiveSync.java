@@ -0,0 +1,109 @@
+package com.spellarchives.network;
+
+import io.netty.buffer.ByteBuf;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import com.spellarchives.tile.TileSpellArchive;
+
+
+/**
+ * Server->client archive contents sync, sent only to players with the archive GUI open. Either a
+ * full snapshot (all non-empty types, sent when the GUI opens) or a delta
+ * carrying only the (key, newCount) pairs changed between two change-counter revisions. Keys are
+ * sent as (item registry id, metadata) varints, which Forge keeps consistent between client and
+ * server.
+ *
+ * A delta applies to a client whose revision lies in [baseRevision, revision); a client behind
+ * baseRevision missed an update and requests a full resync via {@link MessageRequestArchiveSync}.
+ */
+public class MessageArchiveSync implements IMessage {
+    private BlockPos pos;
+    private boolean full;
+    private int baseRevision;
+    private int revision;
+    private int scrolls;
+    private int[] itemIds;
+    private int[] metas;
+    private int[] counts;
+
+    public MessageArchiveSync() {}
+
+    public MessageArchiveSync(BlockPos pos, boolean full, int baseRevision, int revision, int scrolls, int[] itemIds, int[] metas, int[] counts) {
+        this.pos = pos;
+        this.full = full;
+        this.baseRevision = baseRevision;
+        this.revision = revision;
+        this.scrolls = scrolls;
+        this.itemIds = itemIds;
+        this.metas = metas;
+        this.counts = counts;
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeLong(pos.toLong());
+        buf.writeBoolean(full);
+        buf.writeInt(baseRevision);
+        buf.writeInt(revision);
+        ByteBufUtils.writeVarInt(buf, scrolls, 5);
+
+        ByteBufUtils.writeVarInt(buf, itemIds.length, 5);
+        for (int i = 0; i < itemIds.length; i++) {
+            ByteBufUtils.writeVarInt(buf, itemIds[i], 5);
+            ByteBufUtils.writeVarInt(buf, metas[i], 5);
+            ByteBufUtils.writeVarInt(buf, counts[i], 5);
+        }
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        this.pos = BlockPos.fromLong(buf.readLong());
+        this.full = buf.readBoolean();
+        this.baseRevision = buf.readInt();
+        this.revision = buf.readInt();
+        this.scrolls = ByteBufUtils.readVarInt(buf, 5);
+
+        int n = ByteBufUtils.readVarInt(buf, 5);
+        this.itemIds = new int[n];
+        this.metas = new int[n];
+        this.counts = new int[n];
+        for (int i = 0; i < n; i++) {
+            itemIds[i] = ByteBufUtils.readVarInt(buf, 5);
+            metas[i] = ByteBufUtils.readVarInt(buf, 5);
+            counts[i] = ByteBufUtils.readVarInt(buf, 5);
+        }
+    }
+
+    public static class Handler implements IMessageHandler<MessageArchiveSync, IMessage> {
+        @Override
+        @SideOnly(Side.CLIENT)
+        public IMessage onMessage(MessageArchiveSync message, MessageContext ctx) {
+            Minecraft.getMinecraft().addScheduledTask(() -> {
+                if (Minecraft.getMinecraft().world == null) return;
+
+                TileEntity te = Minecraft.getMinecraft().world.getTileEntity(message.pos);
+                if (!(te instanceof TileSpellArchive)) return;
+
+                TileSpellArchive tile = (TileSpellArchive) te;
+                boolean applied = tile.applySync(message.full, message.baseRevision, message.revision, message.scrolls,
+                        message.itemIds, message.metas, message.counts);
+
+                // Revision gap: we missed an update, ask the server for a full snapshot (once per gap)
+                if (!applied && tile.markResyncRequested()) {
+                    NetworkHandler.CHANNEL.sendToServer(new MessageRequestArchiveSync(message.pos));
+                }
+            });
+
+            return null;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.spellarchives.network;
 
-import java.nio.charset.StandardCharsets;
 import io.netty.buffer.ByteBuf;
 
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -8,11 +7,13 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 
 import com.spellarchives.config.SpellArchivesConfig;
+import com.spellarchives.tile.SpellKey;
 import com.spellarchives.tile.TileSpellArchive;
 
 import electroblob.wizardry.data.WizardData;
@@ -22,16 +23,19 @@ import net.minecraft.util.text.TextComponentTranslation;
 
 /**
  * Client->server message to identify (discover) a hovered spell using one identification scroll from the archive.
+ * The spell key travels as (item registry id, metadata) varints.
  */
 public class MessageDiscoverSpell implements IMessage {
     private BlockPos pos;
-    private String key;
+    private int itemId;
+    private int meta;
 
     public MessageDiscoverSpell() {}
 
-    public MessageDiscoverSpell(BlockPos pos, String key) {
+    public MessageDiscoverSpell(BlockPos pos, SpellKey key) {
         this.pos = pos;
-        this.key = key;
+        this.itemId = key.getItemId();
+        this.meta = key.getMeta();
     }
 
     @Override
@@ -40,18 +44,15 @@ public class MessageDiscoverSpell implements IMessage {
         buf.writeInt(pos.getY());
         buf.writeInt(pos.getZ());
 
-        byte[] arr = key.getBytes(StandardCharsets.UTF_8);
-        buf.writeInt(arr.length);
-        buf.writeBytes(arr);
+        ByteBufUtils.writeVarInt(buf, itemId, 5);
+        ByteBufUtils.writeVarInt(buf, meta, 5);
     }
 
     @Override
     public void fromBytes(ByteBuf buf) {
         this.pos = new BlockPos(buf.readInt(), buf.readInt(), buf.readInt());
-        int len = buf.readInt();
-        byte[] arr = new byte[len];
-        buf.readBytes(arr);
-        this.key = new String(arr, StandardCharsets.UTF_8);
+        this.itemId = ByteBufUtils.readVarInt(buf, 5);
+        this.meta = ByteBufUtils.readVarInt(buf, 5);
     }
 
     public static class Handler implements IMessageHandler<MessageDiscoverSpell, IMessage> {
@@ -66,7 +67,7 @@ public class MessageDiscoverSpell implements IMessage {
                 TileSpellArchive tile = (TileSpellArchive) te;
                 if (tile.getIdentificationScrollCountPublic() <= 0) return;
 
-                ItemStack proto = tile.stackFromKeyPublic(message.key);
+                ItemStack proto = tile.stackFromKeyPublic(SpellKey.fromNetwork(message.itemId, message.meta));
                 if (proto.isEmpty()) return;
 
                 Spell spell = tile.getSpellPublic(proto);
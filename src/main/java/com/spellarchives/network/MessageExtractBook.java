@@ -1,6 +1,5 @@
 package com.spellarchives.network;
 
-import java.nio.charset.StandardCharsets;
 import io.netty.buffer.ByteBuf;
 
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -10,28 +9,33 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.WorldServer;
 
+import net.minecraftforge.fml.common.network.ByteBufUtils;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 
+import com.spellarchives.tile.SpellKey;
 import com.spellarchives.tile.TileSpellArchive;
 
 
 /**
  * Client->server request to extract a specific number of spell books of a given key from
- * a Spellcaster's Archives tile. The server validates the tile and key, removes the books, and
- * transfers them to the player's inventory (dropping if full).
+ * a Spellcaster's Archives tile. The key travels as (item registry id, metadata) varints. The
+ * server validates the tile and key, removes the books, and transfers them to the player's
+ * inventory (dropping if full).
  */
 public class MessageExtractBook implements IMessage {
     private BlockPos pos;
-    private String key;
+    private int itemId;
+    private int meta;
     private int amount;
 
     public MessageExtractBook() {}
 
-    public MessageExtractBook(BlockPos pos, String key, int amount) {
+    public MessageExtractBook(BlockPos pos, SpellKey key, int amount) {
         this.pos = pos;
-        this.key = key;
+        this.itemId = key.getItemId();
+        this.meta = key.getMeta();
         this.amount = amount;
     }
 
@@ -43,10 +47,8 @@ public class MessageExtractBook implements IMessage {
     @Override
     public void fromBytes(ByteBuf buf) {
         this.pos = new BlockPos(buf.readInt(), buf.readInt(), buf.readInt());
-        int len = buf.readInt();
-        byte[] arr = new byte[len];
-        buf.readBytes(arr);
-        this.key = new String(arr, StandardCharsets.UTF_8);
+        this.itemId = ByteBufUtils.readVarInt(buf, 5);
+        this.meta = ByteBufUtils.readVarInt(buf, 5);
         this.amount = buf.readInt();
     }
 
@@ -61,9 +63,8 @@ public class MessageExtractBook implements IMessage {
         buf.writeInt(pos.getY());
         buf.writeInt(pos.getZ());
 
-        byte[] arr = key.getBytes(StandardCharsets.UTF_8);
-        buf.writeInt(arr.length);
-        buf.writeBytes(arr);
+        ByteBufUtils.writeVarInt(buf, itemId, 5);
+        ByteBufUtils.writeVarInt(buf, meta, 5);
         buf.writeInt(amount);
     }
 
@@ -91,7 +92,7 @@ public class MessageExtractBook implements IMessage {
                 if (!(te instanceof TileSpellArchive)) return;
 
                 TileSpellArchive tile = (TileSpellArchive) te;
-                ItemStack template = tile.stackFromKeyPublic(message.key);
+                ItemStack template = tile.stackFromKeyPublic(SpellKey.fromNetwork(message.itemId, message.meta));
                 if (template.isEmpty()) return;
 
                 ItemStack extracted = tile.removeBooks(template, message.amount);
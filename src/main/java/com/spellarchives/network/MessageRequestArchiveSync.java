@@ -0,0 +1,54 @@
+package com.spellarchives.network;
+
+import io.netty.buffer.ByteBuf;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+import com.spellarchives.tile.TileSpellArchive;
+
+
+/**
+ * Client->server request for a full archive snapshot, sent when the client detects a revision
+ * gap in the delta stream of {@link MessageArchiveSync}.
+ */
+public class MessageRequestArchiveSync implements IMessage {
+    private BlockPos pos;
+
+    public MessageRequestArchiveSync() {}
+
+    public MessageRequestArchiveSync(BlockPos pos) {
+        this.pos = pos;
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeLong(pos.toLong());
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        this.pos = BlockPos.fromLong(buf.readLong());
+    }
+
+    public static class Handler implements IMessageHandler<MessageRequestArchiveSync, IMessage> {
+        @Override
+        public IMessage onMessage(MessageRequestArchiveSync message, MessageContext ctx) {
+            EntityPlayerMP player = ctx.getServerHandler().player;
+            player.getServerWorld().addScheduledTask(() -> {
+                if (player.world == null || !player.world.isBlockLoaded(message.pos)) return;
+
+                TileEntity te = player.world.getTileEntity(message.pos);
+                if (!(te instanceof TileSpellArchive)) return;
+
+                ((TileSpellArchive) te).sendFullSync(player);
+            });
+
+            return null;
+        }
+    }
+}
@@ -28,6 +28,11 @@ public final class NetworkHandler {
         CHANNEL.registerMessage(MessageExtractScrolls.Handler.class, MessageExtractScrolls.class, id++, Side.SERVER);
         CHANNEL.registerMessage(MessageDiscoverSpell.Handler.class, MessageDiscoverSpell.class, id++, Side.SERVER);
         CHANNEL.registerMessage(MessageDiscoverSpellAck.Handler.class, MessageDiscoverSpellAck.class, id++, Side.CLIENT);
+        CHANNEL.registerMessage(MessageArchiveSync.Handler.class, MessageArchiveSync.class, id++, Side.CLIENT);
+        CHANNEL.registerMessage(MessageRequestArchiveSync.Handler.class, MessageRequestArchiveSync.class, id++, Side.SERVER);
+        // Same discriminator both ways: viewers send edits, the server echoes the current settings
+        CHANNEL.registerMessage(MessageArchiveIoSettings.Handler.class, MessageArchiveIoSettings.class, id, Side.SERVER);
+        CHANNEL.registerMessage(MessageArchiveIoSettings.Handler.class, MessageArchiveIoSettings.class, id++, Side.CLIENT);
         initialized = true;
     }
 }
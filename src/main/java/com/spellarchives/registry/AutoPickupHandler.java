@@ -9,7 +9,6 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.InventoryPlayer;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ResourceLocation;
@@ -23,7 +22,7 @@ import electroblob.wizardry.spell.Spell;
 
 import com.spellarchives.SpellArchives;
 import com.spellarchives.config.SpellArchivesConfig;
-import com.spellarchives.tile.TileSpellArchive;
+import com.spellarchives.tile.ArchiveTransaction;
 
 /**
  * Listens for player item pickups and, when enabled in config and a Spellcaster's Archives
@@ -142,31 +141,15 @@ public final class AutoPickupHandler {
     private static int addToArchiveItem(ItemStack archiveStack, ItemStack spellBook) {
         if (archiveStack == null || archiveStack.isEmpty() || spellBook == null || spellBook.isEmpty()) return 0;
 
-        // Reconstruct a TileSpellArchive from the item's BlockEntityTag NBT (if present)
-        TileSpellArchive archiveTile = new TileSpellArchive();
+        // Reconstruct the archive from the item's BlockEntityTag NBT (if present); the transaction
+        // saves it back into the item's NBT on commit, preserving other root tags
+        try (ArchiveTransaction tx = ArchiveTransaction.onItem(archiveStack)) {
+            // Insert through the archive itself, for consistency of insertion logic
+            int before = spellBook.getCount();
+            ItemStack remainder = tx.insert(spellBook);
+            int after = remainder == null || remainder.isEmpty() ? 0 : remainder.getCount();
 
-        NBTTagCompound root = archiveStack.getTagCompound();
-        NBTTagCompound blockTag = (root != null && root.hasKey("BlockEntityTag"))
-                ? root.getCompoundTag("BlockEntityTag")
-                : new NBTTagCompound();
-
-        archiveTile.readFromNBT(blockTag);
-
-        // Attempt to insert the books into the reconstructed tile, for consistency of insertion logic
-        int before = spellBook.getCount();
-        ItemStack remainder = archiveTile.addBooks(spellBook);
-        int after = remainder == null || remainder.isEmpty() ? 0 : remainder.getCount();
-        int accepted = before - after;
-
-        if (accepted > 0) {
-            // Save the modified tile back into the item's NBT, preserving other root tags
-            NBTTagCompound newRoot = root != null ? root.copy() : new NBTTagCompound();
-            NBTTagCompound newBlockTag = archiveTile.writeToNBT(new NBTTagCompound());
-
-            newRoot.setTag("BlockEntityTag", newBlockTag);
-            archiveStack.setTagCompound(newRoot);
+            return before - after;
         }
-
-        return accepted;
     }
 }
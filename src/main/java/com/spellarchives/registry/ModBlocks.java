@@ -80,16 +80,32 @@ public class ModBlocks {
 
                     if (stack.hasTagCompound() && stack.getTagCompound().hasKey("BlockEntityTag")) {
                         NBTTagCompound be = stack.getTagCompound().getCompoundTag("BlockEntityTag");
-                        if (be.hasKey("spells")) {
-                            NBTTagList list = be.getTagList("spells", 10);
+                        boolean compact = be.hasKey("counts", 11);
+                        if (compact || be.hasKey("spells")) {
                             int types = 0;
                             long total = 0;
-                            for (int i = 0; i < list.tagCount(); i++) {
-                                NBTTagCompound tag = list.getCompoundTagAt(i);
-                                int count = tag.getInteger("count");
-                                if (count > 0) {
-                                    types++;
-                                    total += count;
+                            if (be.hasKey("total")) {
+                                // Summary persisted next to the contents
+                                types = be.getInteger("types");
+                                total = be.getLong("total");
+                            } else if (compact) {
+                                // Compact format: parallel count array next to the spell name dictionary
+                                for (int count : be.getIntArray("counts")) {
+                                    if (count > 0) {
+                                        types++;
+                                        total += count;
+                                    }
+                                }
+                            } else {
+                                // Legacy format: list of {spell, count} compounds
+                                NBTTagList list = be.getTagList("spells", 10);
+                                for (int i = 0; i < list.tagCount(); i++) {
+                                    NBTTagCompound tag = list.getCompoundTagAt(i);
+                                    int count = tag.getInteger("count");
+                                    if (count > 0) {
+                                        types++;
+                                        total += count;
+                                    }
                                 }
                             }
 
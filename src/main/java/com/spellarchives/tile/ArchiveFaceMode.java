@@ -0,0 +1,59 @@
+package com.spellarchives.tile;
+
+
+/**
+ * Automation access allowed through one face of an archive. Faces are absolute world directions,
+ * so rotating the block does not move the configured modes.
+ */
+public enum ArchiveFaceMode {
+    BOTH(true, true),
+    INSERT(true, false),
+    EXTRACT(false, true),
+    DISABLED(false, false);
+
+    private static final ArchiveFaceMode[] VALUES = values();
+
+    private final boolean insert;
+    private final boolean extract;
+
+    ArchiveFaceMode(boolean insert, boolean extract) {
+        this.insert = insert;
+        this.extract = extract;
+    }
+
+    /**
+     * @return True if items may be inserted through a face in this mode.
+     */
+    public boolean canInsert() {
+        return insert;
+    }
+
+    /**
+     * @return True if items may be extracted through a face in this mode.
+     */
+    public boolean canExtract() {
+        return extract;
+    }
+
+    /**
+     * @return The mode following this one in the cycle order (wrapping around).
+     */
+    public ArchiveFaceMode next() {
+        return VALUES[(ordinal() + 1) % VALUES.length];
+    }
+
+    /**
+     * @return The lang key describing this mode.
+     */
+    public String getTranslationKey() {
+        return "gui.spellarchives.face_mode." + name().toLowerCase();
+    }
+
+    /**
+     * @param ordinal Persisted ordinal.
+     * @return The matching mode, or BOTH if out of range.
+     */
+    public static ArchiveFaceMode byOrdinal(int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : BOTH;
+    }
+}
@@ -0,0 +1,91 @@
+package com.spellarchives.tile;
+
+import java.util.PriorityQueue;
+
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import com.spellarchives.SpellArchives;
+
+
+/**
+ * Runs the active I/O (export bus and import) of archives on a per-archive schedule instead of ticking
+ * every archive. Each archive is queued with the server tick it is next due at; after a run it
+ * asks to be requeued with a delay that grows while there is nothing to move, so idle or blocked
+ * archives cost almost nothing.
+ *
+ * An archive is queued at most once: rescheduling earlier supersedes the pending entry, which
+ * is then skipped when it comes up. Only touched from the server thread.
+ */
+@Mod.EventBusSubscriber(modid = SpellArchives.MODID)
+public final class ArchiveIoScheduler {
+    private static final PriorityQueue<Entry> queue = new PriorityQueue<>((a, b) -> Long.compare(a.due, b.due));
+    private static long tick = 0;
+
+    private ArchiveIoScheduler() {}
+
+    /**
+     * Queues the archive to run after the given delay, unless it is already due sooner.
+     *
+     * @param tile The archive.
+     * @param delay Delay in server ticks (at least 1).
+     */
+    static void schedule(TileSpellArchive tile, int delay) {
+        long due = tick + Math.max(1, delay);
+        if (tile.ioDueTick >= 0 && tile.ioDueTick <= due) return;
+
+        tile.ioDueTick = due;
+        queue.add(new Entry(due, tile));
+    }
+
+    /**
+     * Forgets the archive; its pending entry (if any) is dropped when it comes up.
+     *
+     * @param tile The archive.
+     */
+    static void cancel(TileSpellArchive tile) {
+        tile.ioDueTick = -1;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        tick++;
+        while (!queue.isEmpty() && queue.peek().due <= tick) {
+            Entry entry = queue.poll();
+            TileSpellArchive tile = entry.tile;
+            if (tile.ioDueTick != entry.due) continue;  // superseded or cancelled
+
+            tile.ioDueTick = -1;
+            if (tile.isInvalid() || !tile.hasWorld()) continue;
+
+            int next = tile.runScheduledIo();
+            if (next > 0) schedule(tile, next);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isRemote) return;
+
+        queue.removeIf(entry -> {
+            if (entry.tile.getWorld() != event.getWorld()) return false;
+
+            entry.tile.ioDueTick = -1;
+            return true;
+        });
+    }
+
+    private static final class Entry {
+        final long due;
+        final TileSpellArchive tile;
+
+        Entry(long due, TileSpellArchive tile) {
+            this.due = due;
+            this.tile = tile;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.spellarchives.tile;
+
+import java.util.Arrays;
+
+
+/**
+ * Immutable copy of an archive's contents at one content revision: the stored types in slot
+ * order with their counts, the identification scroll reserve and the {@link ArchiveStats}
+ * aggregates. Built lazily by {@link TileSpellArchive#getSnapshot()} at most once per revision
+ * and shared by every reader of that revision.
+ *
+ * Iteration is by index over primitive arrays ({@link #ordinalAt}/{@link #countAt}) or through
+ * {@link #forEach}, so renderers never box counts or build maps.
+ *
+ * Snapshots are never modified after construction and may be read from any thread; see
+ * {@link TileSpellArchive#getPublishedSnapshot()} for obtaining one off the server thread.
+ */
+public final class ArchiveSnapshot implements ArchiveStats {
+    /**
+     * Receives one stored type per call.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int ordinal, int count);
+    }
+
+    private final int revision;
+    private final int scrolls;
+    // Stored types (count > 0) in slot order
+    private final int[] ordinals;
+    private final int[] counts;
+    // ordinal -> count, for O(1) lookups
+    private final int[] countByOrdinal;
+
+    private final long total;
+    private final long[] tierTotals;
+    private final long[] elementTotals;
+
+    private ArchiveSnapshot(int revision, int scrolls, int[] ordinals, int[] counts, int[] countByOrdinal, long total, long[] tierTotals, long[] elementTotals) {
+        this.revision = revision;
+        this.scrolls = scrolls;
+        this.ordinals = ordinals;
+        this.counts = counts;
+        this.countByOrdinal = countByOrdinal;
+        this.total = total;
+        this.tierTotals = tierTotals;
+        this.elementTotals = elementTotals;
+    }
+
+    /**
+     * Copies the live store. Zero-count slots awaiting compaction are skipped.
+     *
+     * @param store The store to copy.
+     * @param revision The content revision the copy is taken at.
+     * @param scrolls The identification scroll reserve.
+     * @return The snapshot.
+     */
+    static ArchiveSnapshot of(SpellCountStore store, int revision, int scrolls) {
+        int[] ordinals = new int[store.distinctCount()];
+        int[] counts = new int[ordinals.length];
+        int maxOrdinal = -1;
+        int n = 0;
+        for (int slot = 0; slot < store.slotCount() && n < ordinals.length; slot++) {
+            int ordinal = store.ordinalAt(slot);
+            int count = store.get(ordinal);
+            if (count <= 0) continue;
+
+            ordinals[n] = ordinal;
+            counts[n++] = count;
+            maxOrdinal = Math.max(maxOrdinal, ordinal);
+        }
+
+        int[] countByOrdinal = new int[maxOrdinal + 1];
+        for (int i = 0; i < n; i++) countByOrdinal[ordinals[i]] = counts[i];
+
+        long[] tierTotals = new long[SpellKeyIndex.TIER_COUNT];
+        for (int i = 0; i < tierTotals.length; i++) tierTotals[i] = store.getTierTotal(i);
+        long[] elementTotals = new long[SpellKeyIndex.ELEMENT_COUNT];
+        for (int i = 0; i < elementTotals.length; i++) elementTotals[i] = store.getElementTotal(i);
+
+        return new ArchiveSnapshot(revision, scrolls, n == ordinals.length ? ordinals : Arrays.copyOf(ordinals, n),
+                n == counts.length ? counts : Arrays.copyOf(counts, n), countByOrdinal, store.getTotalBooks(), tierTotals, elementTotals);
+    }
+
+    /**
+     * @return The content revision this snapshot was taken at.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return The identification scroll reserve at this revision.
+     */
+    public int getIdentificationScrolls() {
+        return scrolls;
+    }
+
+    /**
+     * @return The number of stored types.
+     */
+    public int size() {
+        return ordinals.length;
+    }
+
+    /**
+     * @param index Entry index (0..size-1), in slot order.
+     * @return The spell ordinal of the entry.
+     */
+    public int ordinalAt(int index) {
+        return ordinals[index];
+    }
+
+    /**
+     * @param index Entry index (0..size-1), in slot order.
+     * @return The stored count of the entry (always > 0).
+     */
+    public int countAt(int index) {
+        return counts[index];
+    }
+
+    /**
+     * @param index Entry index (0..size-1), in slot order.
+     * @return The interned key of the entry.
+     */
+    public SpellKey keyAt(int index) {
+        return SpellKeyIndex.keyOf(ordinals[index]);
+    }
+
+    /**
+     * @param ordinal Spell ordinal.
+     * @return The stored count (0 if none).
+     */
+    public int getCount(int ordinal) {
+        return ordinal >= 0 && ordinal < countByOrdinal.length ? countByOrdinal[ordinal] : 0;
+    }
+
+    /**
+     * @param key The spell key (may be null).
+     * @return The stored count (0 if none).
+     */
+    public int getCount(SpellKey key) {
+        return key == null ? 0 : getCount(key.getOrdinal());
+    }
+
+    /**
+     * Visits every stored type in slot order.
+     *
+     * @param consumer Receives (ordinal, count) for each type.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < ordinals.length; i++) consumer.accept(ordinals[i], counts[i]);
+    }
+
+    @Override
+    public int getDistinctTypes() {
+        return ordinals.length;
+    }
+
+    @Override
+    public long getTotalBooks() {
+        return total;
+    }
+
+    @Override
+    public long getTierTotal(int tier) {
+        return tier >= 0 && tier < tierTotals.length ? tierTotals[tier] : 0;
+    }
+
+    @Override
+    public long getElementTotal(int element) {
+        return element >= 0 && element < elementTotals.length ? elementTotals[element] : 0;
+    }
+}
@@ -0,0 +1,30 @@
+package com.spellarchives.tile;
+
+
+/**
+ * Read-only view of the aggregates an archive maintains incrementally on every insert/extract.
+ * All queries are O(1).
+ */
+public interface ArchiveStats {
+    /**
+     * @return The number of spell types with at least one stored book.
+     */
+    int getDistinctTypes();
+
+    /**
+     * @return The total number of stored books.
+     */
+    long getTotalBooks();
+
+    /**
+     * @param tier Wizardry tier ordinal.
+     * @return The number of stored books of that tier (0 if out of range).
+     */
+    long getTierTotal(int tier);
+
+    /**
+     * @param element Wizardry element ordinal.
+     * @return The number of stored books of that element (0 if out of range).
+     */
+    long getElementTotal(int element);
+}
@@ -0,0 +1,120 @@
+package com.spellarchives.tile;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+
+/**
+ * Groups many insertions/extractions on one archive into a single change notification: one
+ * merged change set, one markDirty, one client sync and one render update at commit. Works on
+ * placed archives ({@link TileSpellArchive#beginTransaction()}) and on carried archive items
+ * ({@link #onItem(ItemStack)}), whose {@code BlockEntityTag} is decoded once and written back
+ * once at commit.
+ *
+ * Operations apply immediately (there is no rollback); only the notifications are deferred.
+ * Closing the transaction commits it, so it is meant for try-with-resources:
+ *
+ * <pre>
+ * try (ArchiveTransaction tx = archive.beginTransaction()) {
+ *     for (ItemStack stack : stacks) tx.insert(stack);
+ * }
+ * </pre>
+ */
+public final class ArchiveTransaction implements AutoCloseable {
+    private final TileSpellArchive tile;
+    // Carried archive item to write the contents back to, or null for placed archives
+    private final ItemStack archiveStack;
+    private boolean open = true;
+
+    ArchiveTransaction(TileSpellArchive tile, ItemStack archiveStack) {
+        this.tile = tile;
+        this.archiveStack = archiveStack;
+        tile.beginBatch();
+    }
+
+    /**
+     * Opens a transaction on a carried archive item. The contents are read from the item's
+     * {@code BlockEntityTag} into a detached archive and saved back on commit if anything changed.
+     *
+     * @param archiveStack The archive item stack.
+     * @return The open transaction.
+     */
+    public static ArchiveTransaction onItem(ItemStack archiveStack) {
+        TileSpellArchive detached = new TileSpellArchive();
+
+        NBTTagCompound root = archiveStack.getTagCompound();
+        if (root != null && root.hasKey("BlockEntityTag")) detached.readFromNBT(root.getCompoundTag("BlockEntityTag"));
+
+        return new ArchiveTransaction(detached, archiveStack);
+    }
+
+    /**
+     * @return The archive this transaction operates on (detached for item transactions).
+     */
+    public TileSpellArchive getArchive() {
+        return tile;
+    }
+
+    /**
+     * Inserts spell books.
+     *
+     * @param stack The stack to insert.
+     * @return The remainder if not fully inserted, or empty if completely accepted.
+     */
+    public ItemStack insert(ItemStack stack) {
+        return tile.addBooks(stack);
+    }
+
+    /**
+     * Inserts a number of spell books of the given type.
+     *
+     * @param stack The spell book type.
+     * @param count The number of books to insert.
+     * @return The remainder if not fully inserted, or empty if completely accepted.
+     */
+    public ItemStack insert(ItemStack stack, int count) {
+        return tile.addBooks(stack, count);
+    }
+
+    /**
+     * Adds identification scrolls to the reserve.
+     *
+     * @param amount Number of scrolls to add.
+     * @return The number of scrolls accepted.
+     */
+    public int insertScrolls(int amount) {
+        return tile.addIdentificationScrolls(amount);
+    }
+
+    /**
+     * Extracts spell books.
+     *
+     * @param stack The spell book type to remove.
+     * @param count The number of books to remove.
+     * @return The extracted books, or empty if none were available.
+     */
+    public ItemStack extract(ItemStack stack, int count) {
+        return tile.removeBooks(stack, count);
+    }
+
+    /**
+     * Publishes the merged changes (and, for item transactions, writes the contents back to the
+     * item). Further calls are ignored.
+     */
+    public void commit() {
+        if (!open) return;
+        open = false;
+
+        boolean changed = tile.endBatch();
+        if (changed && archiveStack != null) {
+            NBTTagCompound root = archiveStack.hasTagCompound() ? archiveStack.getTagCompound().copy() : new NBTTagCompound();
+            root.setTag("BlockEntityTag", tile.writeToNBT(new NBTTagCompound()));
+            archiveStack.setTagCompound(root);
+        }
+    }
+
+    @Override
+    public void close() {
+        commit();
+    }
+}
@@ -0,0 +1,98 @@
+package com.spellarchives.tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import com.spellarchives.SpellArchives;
+
+
+/**
+ * Collects archives whose contents changed during the current server tick and flushes each of
+ * them exactly once at the end of the tick. This coalesces the save marking, client sync and
+ * comparator update of many small insertions (e.g., a pipe pushing single books) into a single
+ * notification per archive per tick.
+ *
+ * Only touched from the server thread, except {@link #requestPublish}, which other threads use
+ * to ask for an archive's first published snapshot.
+ */
+@Mod.EventBusSubscriber(modid = SpellArchives.MODID)
+public final class ArchiveUpdateScheduler {
+    private static final Set<TileSpellArchive> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static final List<TileSpellArchive> flushing = new ArrayList<>();
+    // Filled from any thread, drained at the end of the server tick
+    private static final Queue<TileSpellArchive> publishRequests = new ConcurrentLinkedQueue<>();
+
+    private ArchiveUpdateScheduler() {}
+
+    /**
+     * Queues the archive for a flush at the end of the current server tick.
+     *
+     * @param tile The archive with pending changes.
+     */
+    static void schedule(TileSpellArchive tile) {
+        pending.add(tile);
+    }
+
+    /**
+     * Drops the archive from the queue (e.g., when it is invalidated).
+     *
+     * @param tile The archive to forget.
+     */
+    static void cancel(TileSpellArchive tile) {
+        pending.remove(tile);
+    }
+
+    /**
+     * Asks for the archive's snapshot to be published at the end of the current server tick.
+     * Safe to call from any thread; never blocks.
+     *
+     * @param tile The archive to publish.
+     */
+    static void requestPublish(TileSpellArchive tile) {
+        publishRequests.add(tile);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+
+        TileSpellArchive requested;
+        while ((requested = publishRequests.poll()) != null) requested.publishSnapshot();
+
+        if (pending.isEmpty()) return;
+
+        // Copy first: flushing may schedule follow-up work for the next tick
+        flushing.addAll(pending);
+        pending.clear();
+
+        for (TileSpellArchive tile : flushing) tile.flushChanges();
+        flushing.clear();
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isRemote) return;
+
+        // Flush instead of dropping: the last tick's changes must still mark the chunk for saving
+        pending.removeIf(tile -> {
+            if (tile.getWorld() != event.getWorld()) return false;
+
+            tile.flushChanges();
+            return true;
+        });
+
+        // Tiles of the unloaded world are never published; their queued flag stays set, so they
+        // cannot be queued again
+        publishRequests.removeIf(tile -> tile.getWorld() == event.getWorld());
+    }
+}
@@ -0,0 +1,75 @@
+package com.spellarchives.tile;
+
+
+/**
+ * Per-tick allowance of automation operations and moved items for one archive. The allowance
+ * resets lazily on the first operation of a new world tick, so idle archives cost nothing.
+ * Operations refused because the allowance ran out are counted for tuning.
+ *
+ * Only touched from the server thread.
+ */
+final class AutomationBudget {
+    private long tick = Long.MIN_VALUE;
+    private int opsUsed = 0;
+    private int itemsUsed = 0;
+    private boolean limitedThisTick = false;
+
+    // Since the tile was loaded
+    private long refusedOps = 0;
+    private long limitedTicks = 0;
+
+    /**
+     * Accounts for one operation (simulated or real) and returns how many items it may move.
+     *
+     * @param worldTick Current total world time.
+     * @param amount Number of items the operation wants to move.
+     * @param maxOps Operations allowed per tick (<= 0 for unlimited).
+     * @param maxItems Items allowed per tick (<= 0 for unlimited).
+     * @return The number of items the operation may move, or 0 if the budget is exhausted.
+     */
+    int allow(long worldTick, int amount, int maxOps, int maxItems) {
+        if (worldTick != tick) {
+            tick = worldTick;
+            opsUsed = 0;
+            itemsUsed = 0;
+            limitedThisTick = false;
+        }
+
+        int items = maxItems > 0 ? Math.min(amount, maxItems - itemsUsed) : amount;
+        if ((maxOps > 0 && opsUsed >= maxOps) || items <= 0) {
+            refusedOps++;
+            if (!limitedThisTick) {
+                limitedThisTick = true;
+                limitedTicks++;
+            }
+
+            return 0;
+        }
+
+        opsUsed++;
+        return items;
+    }
+
+    /**
+     * Charges the items actually moved by a real (non-simulated) operation.
+     *
+     * @param moved Number of items moved.
+     */
+    void charge(int moved) {
+        itemsUsed += moved;
+    }
+
+    /**
+     * @return The number of operations refused because the budget was exhausted.
+     */
+    long getRefusedOps() {
+        return refusedOps;
+    }
+
+    /**
+     * @return The number of ticks in which the budget ran out.
+     */
+    long getLimitedTicks() {
+        return limitedTicks;
+    }
+}
@@ -0,0 +1,71 @@
+package com.spellarchives.tile;
+
+import java.util.function.IntConsumer;
+
+
+/**
+ * Bounded ring buffer of recent content changes, each recorded as (revision, ordinal). Answers
+ * "which ordinals changed after revision N" as long as the buffer still reaches back to N.
+ * Not thread-safe: owned by the tile's thread.
+ */
+final class ChangeJournal {
+    private final int[] revisions;
+    private final int[] ordinals;
+    // Index of the next write, and number of valid entries (<= capacity)
+    private int head = 0;
+    private int size = 0;
+    // Revision the journal started at; nothing before it can be answered
+    private int baseRevision = 0;
+
+    ChangeJournal(int capacity) {
+        this.revisions = new int[capacity];
+        this.ordinals = new int[capacity];
+    }
+
+    /**
+     * Records one change, overwriting the oldest entry when full.
+     *
+     * @param revision The revision after the change.
+     * @param ordinal The changed ordinal, or -1 for changes without a spell type.
+     */
+    void record(int revision, int ordinal) {
+        revisions[head] = revision;
+        ordinals[head] = ordinal;
+        head = (head + 1) % revisions.length;
+        if (size < revisions.length) size++;
+    }
+
+    /**
+     * Forgets all entries; queries for revisions before {@code revision} will require a rescan.
+     *
+     * @param revision The current revision.
+     */
+    void reset(int revision) {
+        head = 0;
+        size = 0;
+        baseRevision = revision;
+    }
+
+    /**
+     * Reports every ordinal changed after the given revision (may repeat ordinals; -1 entries
+     * are skipped).
+     *
+     * @param revision The revision the caller last saw.
+     * @param sink Receives the changed ordinals.
+     * @return False if the journal does not reach back to the revision.
+     */
+    boolean changedSince(int revision, IntConsumer sink) {
+        int oldest = (head - size + revisions.length) % revisions.length;
+
+        // Entries before the oldest retained one (or before the base) are unknown
+        int firstKnown = size == revisions.length ? revisions[oldest] - 1 : baseRevision;
+        if (revision < firstKnown) return false;
+
+        for (int i = 0; i < size; i++) {
+            int idx = (oldest + i) % revisions.length;
+            if (revisions[idx] > revision && ordinals[idx] >= 0) sink.accept(ordinals[idx]);
+        }
+
+        return true;
+    }
+}
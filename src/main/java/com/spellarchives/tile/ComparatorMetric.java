@@ -0,0 +1,34 @@
+package com.spellarchives.tile;
+
+
+/**
+ * What an archive's comparator output measures. Every metric maps to 0..15 from the store's
+ * incrementally maintained aggregates, and is 0 only when there is nothing to measure.
+ */
+public enum ComparatorMetric {
+    // Distinct stored types relative to all registered spells (linear)
+    TYPES,
+    // Total stored books (one level per doubling)
+    BOOKS,
+    // Identification scroll reserve relative to its capacity (linear)
+    SCROLLS,
+    // Books of the types selected for the comparator, separately from the export selection (one level per doubling)
+    SELECTED;
+
+    private static final ComparatorMetric[] VALUES = values();
+
+    /**
+     * @return The lang key naming this metric in the GUI.
+     */
+    public String getTranslationKey() {
+        return "gui.spellarchives.comparator." + name().toLowerCase();
+    }
+
+    /**
+     * @param ordinal Persisted ordinal.
+     * @return The matching metric, or TYPES if out of range.
+     */
+    public static ComparatorMetric byOrdinal(int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : TYPES;
+    }
+}
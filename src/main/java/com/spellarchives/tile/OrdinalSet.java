@@ -0,0 +1,76 @@
+package com.spellarchives.tile;
+
+import java.util.Arrays;
+
+
+/**
+ * Small set of spell ordinals used to accumulate changed keys between flushes. Membership is a
+ * bitset and the members are also kept in an insertion-ordered int list so iteration and
+ * clearing only touch the ordinals that were actually added.
+ */
+final class OrdinalSet {
+    private long[] bits = new long[0];
+    private int[] members = new int[16];
+    private int size = 0;
+
+    /**
+     * Adds an ordinal; negative ordinals are ignored.
+     *
+     * @param ordinal The ordinal to add.
+     * @return True if the ordinal was not already a member.
+     */
+    boolean add(int ordinal) {
+        if (ordinal < 0) return false;
+
+        int word = ordinal >>> 6;
+        if (word >= bits.length) bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+
+        long bit = 1L << ordinal;
+        if ((bits[word] & bit) != 0) return false;
+
+        bits[word] |= bit;
+        if (size == members.length) members = Arrays.copyOf(members, size * 2);
+        members[size++] = ordinal;
+
+        return true;
+    }
+
+    /**
+     * @param ordinal The ordinal to test.
+     * @return True if the ordinal is a member.
+     */
+    boolean contains(int ordinal) {
+        int word = ordinal >>> 6;
+        return ordinal >= 0 && word < bits.length && (bits[word] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * @return The number of members.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return True if there are no members.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index Position in insertion order (0..size-1).
+     * @return The ordinal at that position.
+     */
+    int get(int index) {
+        return members[index];
+    }
+
+    /**
+     * Removes all members in O(size).
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) bits[members[i] >>> 6] = 0L;
+        size = 0;
+    }
+}
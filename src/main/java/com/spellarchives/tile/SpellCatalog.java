@@ -0,0 +1,128 @@
+package com.spellarchives.tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.item.Item;
+import net.minecraft.util.ResourceLocation;
+
+import electroblob.wizardry.item.ItemSpellBook;
+import electroblob.wizardry.spell.Spell;
+
+
+/**
+ * Immutable index of every registered spell and spell book, built once during FML post-init
+ * (after all mods registered their spells and books) instead of lazily on the first archive
+ * load. Assigns each spell the ordinal of its own book (the first book the spell is
+ * {@link Spell#applicableForItem applicable} to, falling back to Wizardry's spell book), so NBT
+ * loading resolves a persisted spell name with one map lookup.
+ *
+ * Published as a single volatile snapshot; readers never lock.
+ */
+public final class SpellCatalog {
+    private static volatile Snapshot snapshot = null;
+
+    private SpellCatalog() {}
+
+    /**
+     * Builds the catalog from the spell and item registries. Called from post-init; later
+     * calls rebuild it. Also builds on first use if an archive is loaded earlier.
+     */
+    public static synchronized void build() {
+        List<Item> books = new ArrayList<>();
+        List<String> modIds = new ArrayList<>();
+        for (ResourceLocation rl : Item.REGISTRY.getKeys()) {
+            Item item = Item.REGISTRY.getObject(rl);
+            if (!(item instanceof ItemSpellBook)) continue;
+
+            books.add(item);
+            if (!modIds.contains(rl.getNamespace())) modIds.add(rl.getNamespace());
+        }
+
+        Item eb = Item.REGISTRY.getObject(new ResourceLocation("ebwizardry", "spell_book"));
+        Item defaultBook = eb instanceof ItemSpellBook ? eb : null;
+
+        Map<String, SpellInfo> byName = new HashMap<>();
+        Map<Spell, SpellInfo> bySpell = new IdentityHashMap<>();
+        for (Spell spell : Spell.registry) {
+            if (spell == null || spell.getRegistryName() == null) continue;
+
+            Item book = defaultBook;
+            for (Item candidate : books) {
+                if (spell.applicableForItem(candidate)) {
+                    book = candidate;
+                    break;
+                }
+            }
+            if (book == null || book.getRegistryName() == null) continue;
+
+            SpellInfo info = SpellKeyIndex.infoOf(SpellKeyIndex.ordinalOf(book, spell.metadata()));
+            if (info == null) continue;
+
+            byName.put(spell.getRegistryName().toString(), info);
+            bySpell.put(spell, info);
+        }
+
+        snapshot = new Snapshot(byName, bySpell, Collections.unmodifiableList(modIds));
+    }
+
+    private static Snapshot get() {
+        Snapshot s = snapshot;
+        if (s != null) return s;
+
+        build();
+        return snapshot;
+    }
+
+    /**
+     * Resolves a persisted spell registry name to the info of the spell's own book.
+     *
+     * @param spellName The spell's registry name.
+     * @return The info, or null if no such spell is registered (e.g., its mod was removed).
+     */
+    @Nullable
+    public static SpellInfo infoForName(String spellName) {
+        return get().byName.get(spellName);
+    }
+
+    /**
+     * @param spell A registered spell.
+     * @return The info of the spell's own book, or null if the spell has no book.
+     */
+    @Nullable
+    public static SpellInfo infoFor(Spell spell) {
+        return get().bySpell.get(spell);
+    }
+
+    /**
+     * @return The mod ids owning at least one spell book, in registry order (read-only).
+     */
+    public static List<String> getBookModIds() {
+        return get().modIds;
+    }
+
+    /**
+     * @return The number of registered spells that have a book.
+     */
+    public static int getSpellCount() {
+        return get().byName.size();
+    }
+
+    private static final class Snapshot {
+        final Map<String, SpellInfo> byName;
+        final Map<Spell, SpellInfo> bySpell;
+        final List<String> modIds;
+
+        Snapshot(Map<String, SpellInfo> byName, Map<Spell, SpellInfo> bySpell, List<String> modIds) {
+            this.byName = byName;
+            this.bySpell = bySpell;
+            this.modIds = modIds;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.spellarchives.tile;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+
+/**
+ * Primitive storage engine behind {@link TileSpellArchive}. Counts live in a dense int array
+ * indexed by the spell ordinal from {@link SpellKeyIndex}; a presence bitset tracks which
+ * ordinals currently hold books, and a slot-order table keeps the order in which types were
+ * first stored so external item handlers see stable slot indices.
+ *
+ * Reads and updates are O(1) and allocation-free; arrays only grow (amortized) when a
+ * previously unseen ordinal is stored. The {@link ArchiveStats} aggregates are kept up to date
+ * on every count change. Not thread-safe: owned by the tile's thread.
+ */
+final class SpellCountStore implements ArchiveStats {
+    // ordinal -> stored count
+    private int[] counts = new int[0];
+    // ordinal -> slot index, -1 when the ordinal has no slot
+    private int[] slotOfOrdinal = new int[0];
+    // bit per ordinal, set while count > 0
+    private long[] present = new long[0];
+
+    // slot -> ordinal, in first-stored order
+    private int[] ordinalOfSlot = new int[16];
+    private int slotCount = 0;
+    // Bumped whenever existing slots are renumbered by compact()
+    private int slotGeneration = 0;
+
+    // Aggregates, adjusted by the delta of every count change
+    private int distinct = 0;
+    private long total = 0;
+    private final long[] tierTotals = new long[SpellKeyIndex.TIER_COUNT];
+    private final long[] elementTotals = new long[SpellKeyIndex.ELEMENT_COUNT];
+
+    /**
+     * @param ordinal Spell ordinal.
+     * @return The stored count (0 if unknown).
+     */
+    int get(int ordinal) {
+        return ordinal >= 0 && ordinal < counts.length ? counts[ordinal] : 0;
+    }
+
+    /**
+     * Adds books of the given ordinal, clamping at Integer.MAX_VALUE (overflow is voided).
+     * Assigns a slot on first use.
+     *
+     * @param ordinal Spell ordinal (must be >= 0).
+     * @param amount Number of books to add (> 0).
+     * @return The new stored count.
+     */
+    int add(int ordinal, int amount) {
+        ensureSlot(ordinal);
+
+        long next = Math.min((long) counts[ordinal] + amount, Integer.MAX_VALUE);
+        setCount(ordinal, (int) next);
+
+        return (int) next;
+    }
+
+    /**
+     * Removes up to the requested number of books of the given ordinal. The slot is kept even
+     * when the count reaches zero so slot indices stay stable until the next {@link #compact}.
+     *
+     * @param ordinal Spell ordinal.
+     * @param amount Maximum number of books to remove.
+     * @return The number of books actually removed.
+     */
+    int remove(int ordinal, int amount) {
+        int available = get(ordinal);
+        int taken = Math.min(available, Math.max(0, amount));
+        if (taken > 0) setCount(ordinal, available - taken);
+
+        return taken;
+    }
+
+    /**
+     * Sets the count for the given ordinal, assigning a slot if needed. Used when loading.
+     *
+     * @param ordinal Spell ordinal (must be >= 0).
+     * @param count New count (negative values are treated as zero).
+     */
+    void set(int ordinal, int count) {
+        ensureSlot(ordinal);
+        setCount(ordinal, Math.max(0, count));
+    }
+
+    /**
+     * @return The number of slots (known types, including ones currently at zero).
+     */
+    int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * @param slot Slot index.
+     * @return The ordinal stored in the slot, or -1 if out of range.
+     */
+    int ordinalAt(int slot) {
+        return slot >= 0 && slot < slotCount ? ordinalOfSlot[slot] : -1;
+    }
+
+    /**
+     * @param ordinal Spell ordinal.
+     * @return The slot assigned to the ordinal, or -1 if none.
+     */
+    int slotOf(int ordinal) {
+        return ordinal >= 0 && ordinal < slotOfOrdinal.length ? slotOfOrdinal[ordinal] : -1;
+    }
+
+    /**
+     * @param ordinal Spell ordinal.
+     * @return True if at least one book of the ordinal is stored.
+     */
+    boolean isPresent(int ordinal) {
+        int word = ordinal >>> 6;
+        return ordinal >= 0 && word < present.length && (present[word] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * @return The number of slots whose type is currently at zero.
+     */
+    int deadSlotCount() {
+        // Every ordinal with a non-zero count has a slot
+        return slotCount - distinct;
+    }
+
+    /**
+     * @return The slot-layout generation; changes whenever {@link #compact} renumbers slots.
+     */
+    int slotGeneration() {
+        return slotGeneration;
+    }
+
+    /**
+     * Drops the slots of all types at zero, keeping the relative (first-stored) order of the
+     * remaining slots, and bumps the slot generation if anything was removed.
+     *
+     * @param onRemoved Receives the ordinal of every dropped slot.
+     * @return The number of dropped slots.
+     */
+    int compact(IntConsumer onRemoved) {
+        int write = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int ordinal = ordinalOfSlot[slot];
+            if (counts[ordinal] > 0) {
+                ordinalOfSlot[write] = ordinal;
+                slotOfOrdinal[ordinal] = write;
+                write++;
+            } else {
+                slotOfOrdinal[ordinal] = -1;
+                onRemoved.accept(ordinal);
+            }
+        }
+
+        int removed = slotCount - write;
+        slotCount = write;
+        if (removed > 0) slotGeneration++;
+
+        return removed;
+    }
+
+    /**
+     * @return The number of ordinals with a non-zero count.
+     */
+    int distinctCount() {
+        return distinct;
+    }
+
+    @Override
+    public int getDistinctTypes() {
+        return distinct;
+    }
+
+    @Override
+    public long getTotalBooks() {
+        return total;
+    }
+
+    @Override
+    public long getTierTotal(int tier) {
+        return tier >= 0 && tier < tierTotals.length ? tierTotals[tier] : 0;
+    }
+
+    @Override
+    public long getElementTotal(int element) {
+        return element >= 0 && element < elementTotals.length ? elementTotals[element] : 0;
+    }
+
+    /**
+     * Drops all counts and slots, keeping the allocated arrays for reuse.
+     */
+    void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(slotOfOrdinal, -1);
+        Arrays.fill(present, 0L);
+        slotCount = 0;
+        slotGeneration++;
+
+        distinct = 0;
+        total = 0;
+        Arrays.fill(tierTotals, 0L);
+        Arrays.fill(elementTotals, 0L);
+    }
+
+    private void setCount(int ordinal, int count) {
+        int old = counts[ordinal];
+        if (old == count) return;
+
+        counts[ordinal] = count;
+
+        long delta = (long) count - old;
+        total += delta;
+        tierTotals[SpellKeyIndex.tierOf(ordinal) % tierTotals.length] += delta;
+        elementTotals[SpellKeyIndex.elementOf(ordinal) % elementTotals.length] += delta;
+
+        long bit = 1L << ordinal;
+        if (count > 0) {
+            present[ordinal >>> 6] |= bit;
+            if (old == 0) distinct++;
+        } else {
+            present[ordinal >>> 6] &= ~bit;
+            distinct--;
+        }
+    }
+
+    private void ensureSlot(int ordinal) {
+        if (ordinal >= counts.length) grow(ordinal + 1);
+        if (slotOfOrdinal[ordinal] >= 0) return;
+
+        if (slotCount == ordinalOfSlot.length) ordinalOfSlot = Arrays.copyOf(ordinalOfSlot, slotCount * 2);
+
+        ordinalOfSlot[slotCount] = ordinal;
+        slotOfOrdinal[ordinal] = slotCount;
+        slotCount++;
+    }
+
+    private void grow(int minSize) {
+        int oldLen = counts.length;
+        int newLen = Math.max(minSize, Math.max(64, oldLen + (oldLen >> 1)));
+
+        counts = Arrays.copyOf(counts, newLen);
+        slotOfOrdinal = Arrays.copyOf(slotOfOrdinal, newLen);
+        Arrays.fill(slotOfOrdinal, oldLen, newLen, -1);
+        present = Arrays.copyOf(present, (newLen + 63) >>> 6);
+    }
+}
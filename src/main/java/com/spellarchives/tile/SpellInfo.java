@@ -0,0 +1,142 @@
+package com.spellarchives.tile;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.item.Item;
+import net.minecraft.util.ResourceLocation;
+
+import electroblob.wizardry.item.ItemSpellBook;
+import electroblob.wizardry.spell.Spell;
+
+
+/**
+ * Immutable, precomputed facts about one spell ordinal (spell book item + metadata): the
+ * Wizardry spell, its registry name, tier, element, UI colors and the book's mod id. Created
+ * once by {@link SpellKeyIndex} when the ordinal is assigned, so GUI, NBT and automation code
+ * resolve everything with a single array index instead of repeated Wizardry lookups.
+ */
+public final class SpellInfo {
+    // Local color palettes (fallback-safe across Wizardry versions)
+    private static final int[] TIER_COLORS = new int[]{
+        0x55FF55, // Novice
+        0x5555FF, // Apprentice
+        0xAA00AA, // Advanced
+        0xFFD700  // Master
+    };
+
+    private static final int[] ELEMENT_COLORS = new int[]{
+        0xE25822, // fire
+        0x22A1E2, // ice
+        0x7CFC00, // earth
+        0xAAAAAA, // necromancy
+        0x00CED1, // sorcery
+        0xFFA500, // lightning
+        0xFF69B4, // healing
+        0x8A2BE2  // arcane
+    };
+
+    private final int ordinal;
+    private final Item item;
+    private final int meta;
+    @Nullable
+    private final Spell spell;
+    @Nullable
+    private final String spellName;
+    private final String modId;
+    private final int tier;
+    private final int element;
+    private final int rarityColor;
+    private final int elementColor;
+
+    SpellInfo(int ordinal, Item item, int meta) {
+        this.ordinal = ordinal;
+        this.item = item;
+        this.meta = meta;
+
+        // Only spell books carry a spell in their metadata
+        this.spell = item instanceof ItemSpellBook ? Spell.byMetadata(meta) : null;
+        ResourceLocation spellRl = spell != null ? spell.getRegistryName() : null;
+        this.spellName = spellRl != null ? spellRl.toString() : null;
+
+        ResourceLocation itemRl = item.getRegistryName();
+        this.modId = itemRl != null ? itemRl.getNamespace() : "unknown";
+
+        // 0 is used as a safe fallback when the spell cannot be resolved
+        this.tier = spell != null ? spell.getTier().ordinal() : 0;
+        this.element = spell != null ? spell.getElement().ordinal() : 0;
+        this.rarityColor = TIER_COLORS[Math.max(0, Math.min(tier, TIER_COLORS.length - 1))];
+        this.elementColor = ELEMENT_COLORS[Math.max(0, element) % ELEMENT_COLORS.length];
+    }
+
+    /**
+     * @return The spell ordinal this entry describes.
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * @return The spell book item.
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * @return The metadata (spell id).
+     */
+    public int getMeta() {
+        return meta;
+    }
+
+    /**
+     * @return The Wizardry spell, or null if the item is not a spell book or the id is unknown.
+     */
+    @Nullable
+    public Spell getSpell() {
+        return spell;
+    }
+
+    /**
+     * @return The spell's registry name (the persisted identity), or null if unresolved.
+     */
+    @Nullable
+    public String getSpellName() {
+        return spellName;
+    }
+
+    /**
+     * @return The namespace of the spell book item, or "unknown".
+     */
+    public String getModId() {
+        return modId;
+    }
+
+    /**
+     * @return The Wizardry tier ordinal (0 if unresolved).
+     */
+    public int getTier() {
+        return tier;
+    }
+
+    /**
+     * @return The Wizardry element ordinal (0 if unresolved).
+     */
+    public int getElement() {
+        return element;
+    }
+
+    /**
+     * @return The RGB color representing the spell's tier.
+     */
+    public int getRarityColor() {
+        return rarityColor;
+    }
+
+    /**
+     * @return The RGB color representing the spell's element.
+     */
+    public int getElementColor() {
+        return elementColor;
+    }
+}
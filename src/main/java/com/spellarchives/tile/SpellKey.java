@@ -0,0 +1,113 @@
+package com.spellarchives.tile;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+
+/**
+ * Interned, immutable identity of a stored spell type: a spell book item plus its metadata.
+ * Exactly one instance exists per pair (created by {@link SpellKeyIndex} together with the
+ * pair's ordinal), so keys compare by identity and resolving a stack is an identity-map lookup
+ * with no string building or parsing.
+ *
+ * Keys are runtime-only. They go over the network as (item registry id, metadata) and are
+ * persisted by spell registry name.
+ */
+public final class SpellKey {
+    private final Item item;
+    private final int meta;
+    private final int ordinal;
+    private final String name;
+
+    SpellKey(Item item, int meta, int ordinal) {
+        this.item = item;
+        this.meta = meta;
+        this.ordinal = ordinal;
+        this.name = item.getRegistryName() + "|" + meta;
+    }
+
+    /**
+     * Returns the key for the given item/metadata pair, creating it on first use.
+     *
+     * @param item The spell book item.
+     * @param meta The metadata (spell id).
+     * @return The interned key, or null if the pair cannot be indexed.
+     */
+    public static SpellKey of(Item item, int meta) {
+        return SpellKeyIndex.keyOf(SpellKeyIndex.ordinalOf(item, meta));
+    }
+
+    /**
+     * Returns the existing key for the given item/metadata pair without creating one.
+     *
+     * @param item The spell book item.
+     * @param meta The metadata (spell id).
+     * @return The interned key, or null if the pair was never indexed.
+     */
+    public static SpellKey lookup(Item item, int meta) {
+        return SpellKeyIndex.keyOf(SpellKeyIndex.lookup(item, meta));
+    }
+
+    /**
+     * Returns the existing key for the stack's item and metadata without creating one.
+     *
+     * @param stack The stack.
+     * @return The interned key, or null if the stack is empty or its type was never indexed.
+     */
+    public static SpellKey lookup(ItemStack stack) {
+        return stack.isEmpty() ? null : lookup(stack.getItem(), stack.getMetadata());
+    }
+
+    /**
+     * Resolves a key received over the network. Never creates keys, so untrusted input cannot
+     * grow the index.
+     *
+     * @param itemId The item registry id.
+     * @param meta The metadata.
+     * @return The interned key, or null if unknown.
+     */
+    public static SpellKey fromNetwork(int itemId, int meta) {
+        return lookup(Item.getItemById(itemId), meta);
+    }
+
+    /**
+     * @return The spell book item.
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * @return The metadata (spell id).
+     */
+    public int getMeta() {
+        return meta;
+    }
+
+    /**
+     * @return The process-wide ordinal of this key (see {@link SpellKeyIndex}).
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * @return The item registry id used to send this key over the network.
+     */
+    public int getItemId() {
+        return Item.getIdFromItem(item);
+    }
+
+    @Override
+    public int hashCode() {
+        return ordinal;
+    }
+
+    /**
+     * @return The "modid:item|meta" form, for logging and debugging.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,213 @@
+package com.spellarchives.tile;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import electroblob.wizardry.constants.Element;
+import electroblob.wizardry.constants.Tier;
+
+
+/**
+ * Process-wide index assigning a compact ordinal to every (spell book item, metadata) pair seen
+ * by any archive. Ordinals are dense (0..n) so the per-archive storage can use plain arrays
+ * instead of hashed string keys.
+ *
+ * Lookups go through an identity map on the {@link Item} followed by an array index on the
+ * metadata, so resolving a stack never allocates. Tables are copy-on-write: readers never lock,
+ * and the (rare) assignment of a new ordinal publishes fresh tables under a lock.
+ *
+ * Ordinals are only meaningful inside the current JVM; they are never persisted or sent over
+ * the network. Each ordinal has exactly one interned {@link SpellKey}, one 1-count prototype
+ * stack shared by every archive (so archives only store counts) and one precomputed
+ * {@link SpellInfo}. {@link SpellCatalog} assigns the ordinals of every registered spell at
+ * post-init; other pairs are assigned on first use.
+ */
+public final class SpellKeyIndex {
+    // Upper bound for metadata tables; item damage is a short in 1.12
+    private static final int MAX_META = Short.MAX_VALUE;
+
+    // Sizes of the per-tier / per-element aggregate tables
+    public static final int TIER_COUNT = Tier.values().length;
+    public static final int ELEMENT_COUNT = Element.values().length;
+
+    private static final Object LOCK = new Object();
+
+    // Item -> metadata -> ordinal (-1 when unassigned). Published tables are never mutated.
+    private static volatile Map<Item, int[]> ordinalsByItem = new IdentityHashMap<>();
+
+    // Reverse tables indexed by ordinal
+    private static volatile Item[] items = new Item[0];
+    private static volatile int[] metas = new int[0];
+    private static volatile SpellKey[] keys = new SpellKey[0];
+    private static volatile ItemStack[] prototypes = new ItemStack[0];
+    private static volatile SpellInfo[] infos = new SpellInfo[0];
+
+    private static volatile int size = 0;
+
+    private SpellKeyIndex() {}
+
+    /**
+     * Returns the ordinal for the given item/metadata pair, assigning a new one on first use.
+     *
+     * @param item The spell book item.
+     * @param meta The stack metadata (spell id).
+     * @return The ordinal, or -1 if the pair cannot be indexed.
+     */
+    public static int ordinalOf(Item item, int meta) {
+        int ord = lookup(item, meta);
+        if (ord >= 0 || item == null || meta < 0 || meta > MAX_META) return ord;
+
+        return assign(item, meta);
+    }
+
+    /**
+     * Returns the ordinal for the given item/metadata pair without assigning a new one.
+     *
+     * @param item The spell book item.
+     * @param meta The stack metadata (spell id).
+     * @return The ordinal, or -1 if the pair was never indexed.
+     */
+    public static int lookup(Item item, int meta) {
+        if (item == null || meta < 0) return -1;
+
+        int[] table = ordinalsByItem.get(item);
+        if (table == null || meta >= table.length) return -1;
+
+        return table[meta];
+    }
+
+    /**
+     * @return The number of ordinals assigned so far (exclusive upper bound of valid ordinals).
+     */
+    public static int size() {
+        return size;
+    }
+
+    /**
+     * @param ordinal A previously assigned ordinal.
+     * @return The spell book item for the ordinal, or null if out of range.
+     */
+    public static Item itemOf(int ordinal) {
+        Item[] arr = items;
+        return ordinal >= 0 && ordinal < arr.length ? arr[ordinal] : null;
+    }
+
+    /**
+     * @param ordinal A previously assigned ordinal.
+     * @return The metadata for the ordinal, or -1 if out of range.
+     */
+    public static int metaOf(int ordinal) {
+        int[] arr = metas;
+        return ordinal >= 0 && ordinal < arr.length ? arr[ordinal] : -1;
+    }
+
+    /**
+     * Returns the interned key for the ordinal, created once at assignment.
+     *
+     * @param ordinal A previously assigned ordinal.
+     * @return The key, or null if out of range.
+     */
+    public static SpellKey keyOf(int ordinal) {
+        SpellKey[] arr = keys;
+        return ordinal >= 0 && ordinal < arr.length ? arr[ordinal] : null;
+    }
+
+    /**
+     * Returns the shared 1-count stack for the ordinal, created once at assignment. The stack is
+     * shared by every archive and must never be modified; copy it before handing it out.
+     *
+     * @param ordinal A previously assigned ordinal.
+     * @return The prototype, or ItemStack.EMPTY if out of range.
+     */
+    public static ItemStack prototypeOf(int ordinal) {
+        ItemStack[] arr = prototypes;
+        return ordinal >= 0 && ordinal < arr.length ? arr[ordinal] : ItemStack.EMPTY;
+    }
+
+    /**
+     * Returns the precomputed spell facts for the ordinal, resolved once at assignment.
+     *
+     * @param ordinal A previously assigned ordinal.
+     * @return The info, or null if out of range.
+     */
+    @Nullable
+    public static SpellInfo infoOf(int ordinal) {
+        SpellInfo[] arr = infos;
+        return ordinal >= 0 && ordinal < arr.length ? arr[ordinal] : null;
+    }
+
+    /**
+     * Returns the Wizardry tier ordinal of the spell, resolved once at assignment.
+     *
+     * @param ordinal A previously assigned ordinal.
+     * @return The tier ordinal, or 0 if out of range or unresolvable.
+     */
+    public static int tierOf(int ordinal) {
+        SpellInfo info = infoOf(ordinal);
+        return info != null ? info.getTier() : 0;
+    }
+
+    /**
+     * Returns the Wizardry element ordinal of the spell, resolved once at assignment.
+     *
+     * @param ordinal A previously assigned ordinal.
+     * @return The element ordinal, or 0 if out of range or unresolvable.
+     */
+    public static int elementOf(int ordinal) {
+        SpellInfo info = infoOf(ordinal);
+        return info != null ? info.getElement() : 0;
+    }
+
+    /**
+     * Assigns a new ordinal and publishes copies of the affected tables.
+     */
+    private static int assign(Item item, int meta) {
+        synchronized (LOCK) {
+            // Another thread may have assigned it while we waited for the lock
+            int existing = lookup(item, meta);
+            if (existing >= 0) return existing;
+
+            int ord = size;
+
+            Map<Item, int[]> byItem = new IdentityHashMap<>(ordinalsByItem);
+            int[] table = byItem.get(item);
+            int oldLen = table == null ? 0 : table.length;
+            int newLen = oldLen;
+            if (meta >= oldLen) newLen = Math.min(MAX_META + 1, Math.max(meta + 1, Math.max(16, oldLen * 2)));
+
+            int[] newTable = new int[newLen];
+            Arrays.fill(newTable, -1);
+            if (table != null) System.arraycopy(table, 0, newTable, 0, oldLen);
+            newTable[meta] = ord;
+            byItem.put(item, newTable);
+
+            Item[] newItems = Arrays.copyOf(items, ord + 1);
+            int[] newMetas = Arrays.copyOf(metas, ord + 1);
+            SpellKey[] newKeys = Arrays.copyOf(keys, ord + 1);
+            ItemStack[] newPrototypes = Arrays.copyOf(prototypes, ord + 1);
+            SpellInfo[] newInfos = Arrays.copyOf(infos, ord + 1);
+            newItems[ord] = item;
+            newMetas[ord] = meta;
+            newKeys[ord] = new SpellKey(item, meta, ord);
+            newPrototypes[ord] = new ItemStack(item, 1, meta);
+            newInfos[ord] = new SpellInfo(ord, item, meta);
+
+            // Publish reverse tables before the forward map so a visible ordinal always resolves
+            items = newItems;
+            metas = newMetas;
+            keys = newKeys;
+            prototypes = newPrototypes;
+            infos = newInfos;
+            size = ord + 1;
+            ordinalsByItem = byItem;
+
+            return ord;
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package com.spellarchives.tile;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.resources.I18n;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
+import net.minecraft.inventory.InventoryHelper;
 import net.minecraft.network.NetworkManager;
 import net.minecraft.network.play.server.SPacketUpdateTileEntity;
 import net.minecraft.tileentity.TileEntity;
@@ -29,6 +39,7 @@ import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
 
 import com.jaquadro.minecraft.storagedrawers.api.capabilities.IItemRepository;
 import electroblob.wizardry.item.ItemSpellBook;
@@ -37,6 +48,13 @@ import io.github.kurrycat2004.enchlib.common.ISlotlessItemHandler;
 import net.minecraftforge.common.capabilities.CapabilityInject;
 
 import com.spellarchives.SpellArchives;
+import com.spellarchives.api.CapabilityArchiveChangeTracker;
+import com.spellarchives.api.IArchiveChangeTracker;
+import com.spellarchives.config.SpellArchivesConfig;
+import com.spellarchives.container.ContainerSpellArchive;
+import com.spellarchives.network.MessageArchiveIoSettings;
+import com.spellarchives.network.MessageArchiveSync;
+import com.spellarchives.network.NetworkHandler;
 
 
 /**
@@ -46,6 +64,7 @@ import com.spellarchives.SpellArchives;
  * inventory is exposed through capabilities:
  *
  * - IItemHandler: dynamic slot view with a virtual insertion slot to accept new spell types
+ *   (or, with sparse_slot_view, a view listing only the types currently in stock)
  * - IItemRepository (Storage Drawers API): slotless, aggregated view used by external systems
  * - ISlotlessItemHandler (enchlib): slotless insertion/extraction fixes via mixins (requires enchlib to apply)
  *
@@ -58,16 +77,69 @@ public class TileSpellArchive extends TileEntity {
     @CapabilityInject(IItemRepository.class)
     private static Capability<IItemRepository> SD_REPO_CAP = null;
 
-    // Mapping of slot -> runtime key (rl|meta) for slot-based extraction
-    private final List<String> slotKeys = new ArrayList<>();
-    // prototypesByKey: runtime key -> 1-count ItemStack prototype (should not be EMPTY)
-    private final Map<String, ItemStack> prototypesByKey = new HashMap<>();
-    // Map key: rl|meta (NBT intentionally ignored), value: total count
-    // Use LinkedHashMap to keep slot order stable for external handlers (e.g., hoppers)
-    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    // Zero-count slots are compacted at flush time once at least this many (and a quarter of all slots) are dead
+    private static final int COMPACT_MIN_DEAD_SLOTS = 16;
 
-    // Incremented on content changes; synced to client for GUI refresh
+    // Number of recent changes the change-tracker capability can answer for
+    private static final int CHANGE_JOURNAL_SIZE = 256;
+
+    // Persisted contents format: absent = legacy "spells" compound list (format 1), 2 = name dictionary + count array
+    private static final byte NBT_FORMAT_COMPACT = 2;
+
+    // Dense counts indexed by spell ordinal (rl|meta, NBT intentionally ignored), with a stable
+    // slot-order table so external handlers (e.g., hoppers) see consistent slot indices
+    private final SpellCountStore store = new SpellCountStore();
+    // ordinal -> read-only stack handed out by getStackInSlot, rebuilt when its count is stale.
+    // Types themselves are the shared SpellKeyIndex prototypes; only counts are per archive
+    private ItemStack[] viewStacks = new ItemStack[0];
+
+    // Incremented on every content change (immediately, even when notifications are deferred); synced to client for GUI refresh
     private int changeCounter = 0;
+    // Recent (revision, ordinal) changes backing the change-tracker capability
+    private final ChangeJournal journal = new ChangeJournal(CHANGE_JOURNAL_SIZE);
+
+    // Deferred notification state: set while this tile is queued in ArchiveUpdateScheduler
+    private boolean flushPending = false;
+    // Open ArchiveTransaction nesting depth, and whether anything changed inside it
+    private int transactionDepth = 0;
+    private boolean transactionChanged = false;
+    // Ordinals changed since the last flush (consumed by the client sync)
+    private final OrdinalSet changedSinceFlush = new OrdinalSet();
+    // Server: revision viewers were last brought to by a delta (base revision of the next delta).
+    // Client: server revision of the contents applied so far.
+    private int lastSyncedRevision = 0;
+    // Client only: a full resync was requested after a revision gap and has not arrived yet
+    private boolean resyncRequested = false;
+
+    // Server: players with the archive GUI open; only they receive the full contents
+    private final Set<EntityPlayerMP> viewers = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Server: visual state last published through the chunk update tag
+    private int sentStripes = -1;
+    private int sentScrolls = -1;
+    // Client: BOOKS stripe bucket received through the chunk update tag
+    private int syncedStripes = 0;
+
+    // Serialized contents (dictionary + counts) memoized for the revision they were built at;
+    // copies are handed out (and taken on load) so compounds owned by others never alias it
+    private NBTTagList cachedDict = null;
+    private int[] cachedCounts = null;
+    private int cachedRevision = 0;
+
+    // Immutable copy of the contents handed to readers, rebuilt at most once per revision
+    private ArchiveSnapshot snapshot = null;
+    // Latest snapshot for readers on other threads; once one asked, republished after every flush
+    private volatile ArchiveSnapshot published = null;
+    private volatile boolean publishing = false;
+    private final AtomicBoolean publishQueued = new AtomicBoolean(false);
+
+    // True while the contents read from NBT are only held as the cached payload above and not
+    // yet decoded into the store; the persisted summary stands in for the store until then
+    private boolean decodePending = false;
+    private int pendingTypes = 0;
+    private long pendingTotal = 0;
+    // Set once the tile joined a world; reloading a live tile decodes immediately since
+    // handlers handed out earlier read the store directly
+    private boolean loaded = false;
 
     // Internal reserve of identification scrolls (manual-only extraction; not exposed via capabilities)
     private int identificationScrolls = 0;
@@ -78,34 +150,47 @@ public class TileSpellArchive extends TileEntity {
     private boolean suppressCap = false;
 
     // Capability: dynamic view, present at least 1 slot for insertion when empty
-    private final IItemHandler itemHandler = new RepoHandler();
-
-    // Static metadata -> spell name mapping, built once at first use
-    private static Map<Integer, String> metadataToSpellName = null;
-    private static Map<String, Integer> spellNameToMetadata = null;
-
-    // Cached list of all ItemSpellBook instances, built once at first use
-    private static List<Item> allSpellBooks = null;
-    private static Item defaultSpellBook = null;
-
-    /**
-     * Builds static mappings between Wizardry spell metadata and their registry names.
-     * Safe to call repeatedly; initialization happens once on first use.
-     */
-    private static void buildSpellMappings() {
-        if (metadataToSpellName != null) return;
-
-        metadataToSpellName = new LinkedHashMap<>();
-        spellNameToMetadata = new LinkedHashMap<>();
-
-        for (Spell spell : Spell.registry) {
-            if (spell != null && spell.getRegistryName() != null) {
-                int meta = spell.metadata();
-                String name = spell.getRegistryName().toString();
-                metadataToSpellName.put(meta, name);
-                spellNameToMetadata.put(name, meta);
-            }
-        }
+    private final RepoHandler itemHandler = new RepoHandler();
+    // Capability: alternative slot view listing only non-empty types (sparse_slot_view config)
+    private final IItemHandler sparseHandler = new SparseSlotView();
+    // Capability: content revision and recent changes for integrations
+    private final IArchiveChangeTracker changeTracker = new ChangeTracker();
+
+    // Per-tick automation allowance (automation_ops_per_tick / automation_items_per_tick)
+    private final AutomationBudget budget = new AutomationBudget();
+
+    // Automation access per face (EnumFacing index); persisted only when not all BOTH
+    private final ArchiveFaceMode[] faceModes = new ArchiveFaceMode[EnumFacing.VALUES.length];
+    // Lazily created restricted-face wrappers, one per face, reused across mode changes
+    private final FaceHandler[] faceHandlers = new FaceHandler[EnumFacing.VALUES.length];
+
+    // Export bus: face pushed into (null = off), books of each type kept back, and the types
+    // exported (empty = all)
+    @Nullable
+    private EnumFacing exportFace = null;
+    private int exportKeep = 0;
+    private final Set<SpellKey> exportFilter = new LinkedHashSet<>();
+    // Import: face pulled from (null = off)
+    @Nullable
+    private EnumFacing importFace = null;
+    // Spell types counted by the SELECTED comparator metric, independent of the export selection
+    private final Set<SpellKey> comparatorFilter = new LinkedHashSet<>();
+    // Backoff per direction: delay before the next run (doubled after every run that moved
+    // nothing) and the world time that run is due at
+    private int exportDelay = 0;
+    private long exportDue = 0;
+    private int importDelay = 0;
+    private long importDue = 0;
+    // Server tick this archive is queued for in ArchiveIoScheduler, -1 when not queued
+    long ioDueTick = -1;
+
+    // What the comparator output measures, and the level last published to comparators
+    // (-1 = not computed since load)
+    private ComparatorMetric comparatorMetric = ComparatorMetric.TYPES;
+    private int comparatorLevel = -1;
+
+    public TileSpellArchive() {
+        Arrays.fill(faceModes, ArchiveFaceMode.BOTH);
     }
 
     /**
@@ -123,29 +208,50 @@ public class TileSpellArchive extends TileEntity {
          */
         @Override
         public int getSlots() {
-            return Math.max(1, slotKeys.size() + 1);
+            return store.slotCount() + 1;
         }
 
         /**
          * Returns a representative stack for the given slot. The stack's count reflects
          * the total available amount for that spell type.
          *
+         * Per the IItemHandler contract the returned stack must not be modified, so the same
+         * instance is returned until the slot's count changes. Polling automation therefore
+         * does not allocate while the archive is idle.
+         *
          * @param slot Logical slot index.
          * @return A template stack with an amount reflecting availability, or empty if none.
          */
         @Override
         public ItemStack getStackInSlot(int slot) {
             // TODO: is it worth to move the "insertion" slot to 0 instead of the end?
-            if (slot < 0 || slot >= slotKeys.size()) return ItemStack.EMPTY;
+            return viewStackOf(store.ordinalAt(slot));
+        }
+
+        /**
+         * Returns the shared read-only view stack for a spell ordinal, rebuilt only when its
+         * count is stale.
+         *
+         * @param ordinal Spell ordinal (negative values yield an empty stack).
+         * @return A stack whose count is the stored amount, or empty if none stored.
+         */
+        ItemStack viewStackOf(int ordinal) {
+            if (ordinal < 0) return ItemStack.EMPTY;
 
-            String key = slotKeys.get(slot);
-            int available = counts.getOrDefault(key, 0);
+            int available = store.get(ordinal);
             if (available <= 0) return ItemStack.EMPTY;
 
-            ItemStack proto = prototypesByKey.get(key);
-            ItemStack out = proto.copy();
-            out.setCount(available);
-            return out;
+            // The count check also catches callers that mutate the stack despite the contract
+            if (ordinal >= viewStacks.length) viewStacks = Arrays.copyOf(viewStacks, Math.max(ordinal + 1, viewStacks.length * 2));
+
+            ItemStack view = viewStacks[ordinal];
+            if (view == null || view.getCount() != available) {
+                view = SpellKeyIndex.prototypeOf(ordinal).copy();
+                view.setCount(available);
+                viewStacks[ordinal] = view;
+            }
+
+            return view;
         }
 
         /**
@@ -153,6 +259,9 @@ public class TileSpellArchive extends TileEntity {
          * Capacity is effectively unbounded (Integer.MAX_VALUE per type); overflow is
          * treated as accepted and the remainder is voided to avoid systems overfilling.
          *
+         * Automation calls are subject to the per-tick budget: once it is exhausted the stack is
+         * returned untouched, and a partially exhausted item budget only accepts part of it.
+         *
          * @param slot The target slot index; ignored because insertion is slotless.
          * @param stack The incoming stack to insert.
          * @param simulate If true, do not modify state; only compute the result.
@@ -160,21 +269,47 @@ public class TileSpellArchive extends TileEntity {
          */
         @Override
         public ItemStack insertItem(int slot, ItemStack stack, boolean simulate) {
+            if (stack.isEmpty() || !(isSpellBook(stack) || isIdentificationScroll(stack))) return stack;
+
+            int allowed = budgetAllowance(stack.getCount());
+            if (allowed <= 0) return stack;
+
+            ItemStack part = stack;
+            if (allowed < stack.getCount()) {
+                part = stack.copy();
+                part.setCount(allowed);
+            }
+
+            ItemStack rem = insertStack(part, simulate);
+            int inserted = part.getCount() - rem.getCount();
+            if (!simulate) chargeBudget(inserted);
+
+            if (part == stack) return rem;
+
+            ItemStack out = stack.copy();
+            out.shrink(inserted);
+            return out;
+        }
+
+        /**
+         * Inserts a stack without budget accounting (internal callers, GUI and transactions).
+         *
+         * @param stack The incoming stack to insert.
+         * @param simulate If true, do not modify state; only compute the result.
+         * @return The remainder, or empty if completely accepted.
+         */
+        ItemStack insertStack(ItemStack stack, boolean simulate) {
             if (stack.isEmpty()) return stack;
 
             // Accept spell books
             if (isSpellBook(stack)) {
+                int ordinal = keyOf(stack);
+                if (ordinal < 0) return stack;
+
                 if (!simulate) {
                     // insert into any slot, capping at Integer.MAX_VALUE per type
-                    String key = keyOf(stack);
-
-                    long current = (long) counts.getOrDefault(key, 0);
-                    long newCount = Math.min(current + stack.getCount(), Integer.MAX_VALUE);
-
-                    int oldSize = counts.size();
-                    counts.put(key, (int) newCount);
-                    updateCachedForKey(key, stack, oldSize);
-                    onContentsChanged();
+                    store.add(ordinal, stack.getCount());
+                    onContentsChanged(ordinal);
                 }
 
                 return ItemStack.EMPTY;
@@ -200,32 +335,51 @@ public class TileSpellArchive extends TileEntity {
         }
 
         /**
-         * Extracts spell books from the archive by runtime key.
+         * Extracts spell books from the archive by spell ordinal.
          *
-         * @param key The runtime key indicating the desired spell type.
+         * @param ordinal The ordinal indicating the desired spell type.
          * @param amount The maximum amount to extract.
          * @param simulate If true, do not modify state; only compute the result.
          * @return A stack representing the extracted amount, or empty if unavailable.
          */
-        public ItemStack extractItemFromKey(String key, int amount, boolean simulate) {
-            if (key == null) return ItemStack.EMPTY;
+        public ItemStack extractItemFromKey(int ordinal, int amount, boolean simulate) {
+            if (amount <= 0) return ItemStack.EMPTY;
 
-            int available = counts.getOrDefault(key, 0);
+            int available = store.get(ordinal);
             if (available <= 0) return ItemStack.EMPTY;
 
-            ItemStack proto = prototypesByKey.get(key);
-            ItemStack out = proto.copy();
             int toExtract = Math.min(available, amount);
+            ItemStack out = SpellKeyIndex.prototypeOf(ordinal).copy();
             out.setCount(toExtract);
 
             if (!simulate) {
-                counts.put(key, available - toExtract);
-                onContentsChanged();
+                store.remove(ordinal, toExtract);
+                onContentsChanged(ordinal);
             }
 
             return out;
         }
 
+        /**
+         * Budgeted variant of {@link #extractItemFromKey} used by automation entry points.
+         *
+         * @param ordinal The ordinal indicating the desired spell type.
+         * @param amount The maximum amount to extract.
+         * @param simulate If true, do not modify state; only compute the result.
+         * @return A stack representing the extracted amount, or empty if unavailable or over budget.
+         */
+        ItemStack extractBudgeted(int ordinal, int amount, boolean simulate) {
+            if (amount <= 0 || store.get(ordinal) <= 0) return ItemStack.EMPTY;
+
+            int allowed = budgetAllowance(amount);
+            if (allowed <= 0) return ItemStack.EMPTY;
+
+            ItemStack out = extractItemFromKey(ordinal, allowed, simulate);
+            if (!simulate) chargeBudget(out.getCount());
+
+            return out;
+        }
+
         /**
          * Extracts up to the requested amount of books from the specified slot.
          *
@@ -236,10 +390,9 @@ public class TileSpellArchive extends TileEntity {
          */
         @Override
         public ItemStack extractItem(int slot, int amount, boolean simulate) {
-            if (amount <= 0 || slot < 0 || slot >= slotKeys.size()) return ItemStack.EMPTY;
+            if (amount <= 0) return ItemStack.EMPTY;
 
-            String key = slotKeys.get(slot);
-            return extractItemFromKey(key, amount, simulate);
+            return extractBudgeted(store.ordinalAt(slot), amount, simulate);
         }
 
         /**
@@ -265,30 +418,46 @@ public class TileSpellArchive extends TileEntity {
         public boolean isItemValid(int slot, ItemStack stack) {
             if (stack.isEmpty() || (!isSpellBook(stack) && !isIdentificationScroll(stack))) return false;
 
-            if (slot < 0 || slot >= slotKeys.size()) return false;
+            if (slot < 0 || slot >= store.slotCount()) return false;
 
             if (isIdentificationScroll(stack)) return true;
 
-            String key = slotKeys.get(slot);
-            return key != null && key.equals(keyOf(stack));
+            int ordinal = store.ordinalAt(slot);
+            return ordinal >= 0 && ordinal == SpellKeyIndex.lookup(stack.getItem(), stack.getMetadata());
         }
 
         // ---- IItemRepository implementation (Storage Drawers API) ----
+        // Immutable record list for the revision it was built at
+        private NonNullList<IItemRepository.ItemRecord> cachedRecords = null;
+        private int cachedRecordsRevision = 0;
+
         /**
          * Returns an aggregated, slotless view of all stored spell books. Each record contains a
          * prototype stack with count 1 paired with the total quantity stored for that type.
+         * Types at zero are skipped.
+         *
+         * The list is immutable and shared until the next content change. Each record holds its own
+         * copy of the type's prototype, made once when the list is rebuilt, so callers never see
+         * the stacks shared across archives.
          *
          * @return A list of item records representing all stored book types and quantities.
          */
         @Override
         public NonNullList<IItemRepository.ItemRecord> getAllItems() {
-            NonNullList<IItemRepository.ItemRecord> list = NonNullList.create();
-            for (HashMap.Entry<String, ItemStack> entry : prototypesByKey.entrySet()) {
-                int total = counts.getOrDefault(entry.getKey(), 0);
-                list.add(new IItemRepository.ItemRecord(entry.getValue().copy(), total));
+            if (cachedRecords != null && cachedRecordsRevision == changeCounter) return cachedRecords;
+
+            List<IItemRepository.ItemRecord> records = new ArrayList<>(store.distinctCount());
+            for (int slot = 0; slot < store.slotCount(); slot++) {
+                int ordinal = store.ordinalAt(slot);
+                int count = store.get(ordinal);
+                if (count > 0) records.add(new IItemRepository.ItemRecord(SpellKeyIndex.prototypeOf(ordinal).copy(), count));
             }
 
-            return list;
+            // NonNullList's delegating constructor is protected; the unmodifiable delegate rejects writes
+            cachedRecords = new NonNullList<IItemRepository.ItemRecord>(Collections.unmodifiableList(records), null) {};
+            cachedRecordsRevision = changeCounter;
+
+            return cachedRecords;
         }
 
         /**
@@ -323,8 +492,250 @@ public class TileSpellArchive extends TileEntity {
             if (amount <= 0 || stack.isEmpty() || !isSpellBook(stack)) return ItemStack.EMPTY;
             if (predicate != null && !predicate.test(stack)) return ItemStack.EMPTY;
 
-            String key = keyOf(stack);
-            return extractItemFromKey(key, amount, simulate);
+            int ordinal = SpellKeyIndex.lookup(stack.getItem(), stack.getMetadata());
+            return extractBudgeted(ordinal, amount, simulate);
+        }
+
+        /**
+         * Returns the stored count for the stack's type straight from the count store, without
+         * the simulated extraction of the interface default. The predicate is tested against the
+         * type's cached view stack (the one {@link #getStackInSlot} returns), so polling with a
+         * predicate allocates nothing.
+         *
+         * @param stack Template stack indicating the type to query.
+         * @param predicate Optional filter the stored type must pass.
+         * @return The number of stored books of that type.
+         */
+        @Override
+        public int getStoredItemCount(ItemStack stack, Predicate<ItemStack> predicate) {
+            if (stack.isEmpty() || !isSpellBook(stack)) return 0;
+
+            int ordinal = SpellKeyIndex.lookup(stack.getItem(), stack.getMetadata());
+            int count = store.get(ordinal);
+            if (count <= 0) return 0;
+            if (predicate != null && !predicate.test(viewStackOf(ordinal))) return 0;
+
+            return count;
+        }
+
+        /**
+         * Returns how many more items of the stack's type would be accepted, matching
+         * {@link #insertItem(ItemStack, boolean, Predicate)}: spell books are always fully
+         * accepted (overflow is voided), scrolls up to the reserve limit.
+         *
+         * @param stack Template stack indicating the type to query.
+         * @param predicate Optional filter the stack must pass.
+         * @return The remaining capacity.
+         */
+        @Override
+        public int getRemainingItemCapacity(ItemStack stack, Predicate<ItemStack> predicate) {
+            if (stack.isEmpty()) return 0;
+            if (predicate != null && !predicate.test(stack)) return 0;
+
+            if (isSpellBook(stack)) return Integer.MAX_VALUE;
+
+            if (isIdentificationScroll(stack)) {
+                int max = SpellArchivesConfig.getScrollReserveMax();
+                return Math.max(0, (max < 0 ? Integer.MAX_VALUE : max) - identificationScrolls);
+            }
+
+            return 0;
+        }
+
+        /**
+         * Returns stored count plus remaining capacity for the stack's type, clamped to
+         * Integer.MAX_VALUE.
+         *
+         * @param stack Template stack indicating the type to query.
+         * @param predicate Optional filter.
+         * @return The total capacity.
+         */
+        @Override
+        public int getItemCapacity(ItemStack stack, Predicate<ItemStack> predicate) {
+            long capacity = (long) getStoredItemCount(stack, predicate) + getRemainingItemCapacity(stack, predicate);
+
+            return (int) Math.min(Integer.MAX_VALUE, capacity);
+        }
+    }
+
+    /**
+     * Alternative IItemHandler view that only lists the types currently in stock, followed by the
+     * virtual insertion slot. Slot-scanning routers then skip the zero-count slots the stable
+     * view keeps until compaction.
+     *
+     * The slot -> ordinal indirection table is rebuilt lazily at most once per content revision,
+     * so indices are only stable within one revision: a slot may point at a different type after
+     * any insertion or extraction. Insertion and extraction delegate to {@link RepoHandler}.
+     */
+    private class SparseSlotView implements IItemHandler {
+        // slot -> ordinal of the non-empty types, in first-stored order
+        private int[] ordinals = new int[16];
+        private int size = 0;
+        private int builtRevision = 0;
+        private boolean built = false;
+
+        private void refresh() {
+            if (built && builtRevision == changeCounter) return;
+
+            if (ordinals.length < store.distinctCount()) ordinals = new int[Math.max(store.distinctCount(), ordinals.length * 2)];
+
+            size = 0;
+            for (int slot = 0; slot < store.slotCount(); slot++) {
+                int ordinal = store.ordinalAt(slot);
+                if (store.get(ordinal) > 0) ordinals[size++] = ordinal;
+            }
+
+            builtRevision = changeCounter;
+            built = true;
+        }
+
+        private int ordinalAt(int slot) {
+            refresh();
+            return slot >= 0 && slot < size ? ordinals[slot] : -1;
+        }
+
+        @Override
+        public int getSlots() {
+            refresh();
+            return size + 1;
+        }
+
+        @Override
+        public ItemStack getStackInSlot(int slot) {
+            return itemHandler.viewStackOf(ordinalAt(slot));
+        }
+
+        @Override
+        public ItemStack insertItem(int slot, ItemStack stack, boolean simulate) {
+            // Slotless, like the stable view
+            return itemHandler.insertItem(slot, stack, simulate);
+        }
+
+        @Override
+        public ItemStack extractItem(int slot, int amount, boolean simulate) {
+            if (amount <= 0) return ItemStack.EMPTY;
+
+            return itemHandler.extractBudgeted(ordinalAt(slot), amount, simulate);
+        }
+
+        @Override
+        public int getSlotLimit(int slot) {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean isItemValid(int slot, ItemStack stack) {
+            if (stack.isEmpty() || (!isSpellBook(stack) && !isIdentificationScroll(stack))) return false;
+
+            int ordinal = ordinalAt(slot);
+            if (ordinal < 0) return false;
+
+            return isIdentificationScroll(stack) || ordinal == SpellKeyIndex.lookup(stack.getItem(), stack.getMetadata());
+        }
+    }
+
+    /**
+     * Item handler and repository view for a face restricted to insertion or extraction. The
+     * face's mode is read on every call, so the wrapper stays valid across mode changes; denied
+     * operations return immediately without touching the store. Insert-only faces expose just
+     * the insertion slot, so input pipes do not scan the stored types at all.
+     */
+    private class FaceHandler implements IItemHandler, IItemRepository, ISlotlessItemHandler {
+        private final int face;
+
+        FaceHandler(EnumFacing facing) {
+            this.face = facing.getIndex();
+        }
+
+        private IItemHandler slots() {
+            return SpellArchivesConfig.isSparseSlotViewEnabled() ? sparseHandler : itemHandler;
+        }
+
+        @Override
+        public int getSlots() {
+            return faceModes[face].canExtract() ? slots().getSlots() : 1;
+        }
+
+        @Override
+        public ItemStack getStackInSlot(int slot) {
+            return faceModes[face].canExtract() ? slots().getStackInSlot(slot) : ItemStack.EMPTY;
+        }
+
+        @Override
+        public ItemStack insertItem(int slot, ItemStack stack, boolean simulate) {
+            return faceModes[face].canInsert() ? itemHandler.insertItem(slot, stack, simulate) : stack;
+        }
+
+        @Override
+        public ItemStack extractItem(int slot, int amount, boolean simulate) {
+            return faceModes[face].canExtract() ? slots().extractItem(slot, amount, simulate) : ItemStack.EMPTY;
+        }
+
+        @Override
+        public int getSlotLimit(int slot) {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean isItemValid(int slot, ItemStack stack) {
+            if (!faceModes[face].canInsert()) return false;
+
+            // Insert-only faces only have the (slotless) insertion slot
+            if (!faceModes[face].canExtract()) return isSpellBook(stack) || isIdentificationScroll(stack);
+
+            return slots().isItemValid(slot, stack);
+        }
+
+        @Override
+        public NonNullList<IItemRepository.ItemRecord> getAllItems() {
+            return faceModes[face].canExtract() ? itemHandler.getAllItems() : NonNullList.create();
+        }
+
+        @Override
+        public ItemStack insertItem(ItemStack stack, boolean simulate, Predicate<ItemStack> predicate) {
+            return faceModes[face].canInsert() ? itemHandler.insertItem(stack, simulate, predicate) : stack;
+        }
+
+        @Override
+        public ItemStack extractItem(ItemStack stack, int amount, boolean simulate, Predicate<ItemStack> predicate) {
+            return faceModes[face].canExtract() ? itemHandler.extractItem(stack, amount, simulate, predicate) : ItemStack.EMPTY;
+        }
+
+        @Override
+        public int getStoredItemCount(ItemStack stack, Predicate<ItemStack> predicate) {
+            return faceModes[face].canExtract() ? itemHandler.getStoredItemCount(stack, predicate) : 0;
+        }
+
+        @Override
+        public int getRemainingItemCapacity(ItemStack stack, Predicate<ItemStack> predicate) {
+            return faceModes[face].canInsert() ? itemHandler.getRemainingItemCapacity(stack, predicate) : 0;
+        }
+    }
+
+    /**
+     * Change-tracker capability backed by the change counter and the change journal.
+     */
+    private class ChangeTracker implements IArchiveChangeTracker {
+        @Override
+        public int getRevision() {
+            return changeCounter;
+        }
+
+        @Override
+        @Nullable
+        public List<ItemStack> getChangedSince(int revision) {
+            // A revision from the future was not issued by this instance of the archive
+            if (revision > changeCounter) return null;
+
+            OrdinalSet changed = new OrdinalSet();
+            if (!journal.changedSince(revision, changed::add)) return null;
+
+            List<ItemStack> out = new ArrayList<>(changed.size());
+            for (int i = 0; i < changed.size(); i++) {
+                out.add(SpellKeyIndex.prototypeOf(changed.get(i)).copy());
+            }
+
+            return out;
         }
     }
 
@@ -335,7 +746,8 @@ public class TileSpellArchive extends TileEntity {
      * @return The remainder if not fully inserted, or empty if completely accepted.
      */
     public ItemStack addBooks(ItemStack stack) {
-        return itemHandler.insertItem(0, stack, false);
+        ensureDecoded();
+        return itemHandler.insertStack(stack, false);
     }
 
     /**
@@ -346,9 +758,10 @@ public class TileSpellArchive extends TileEntity {
      * @return The remainder if not fully inserted, or empty if completely accepted.
      */
     public ItemStack addBooks(ItemStack stack, int count) {
+        ensureDecoded();
         ItemStack toInsert = stack.copy();
         toInsert.setCount(count);
-        return itemHandler.insertItem(0, toInsert, false);
+        return itemHandler.insertStack(toInsert, false);
     }
 
     /**
@@ -419,7 +832,10 @@ public class TileSpellArchive extends TileEntity {
      * @return The extracted books, or empty if none were available.
      */
     public ItemStack removeBooks(ItemStack stack, int count) {
-        return ((IItemRepository) itemHandler).extractItem(stack, count, false, null);
+        ensureDecoded();
+        if (stack.isEmpty() || !isSpellBook(stack)) return ItemStack.EMPTY;
+
+        return itemHandler.extractItemFromKey(SpellKeyIndex.lookup(stack.getItem(), stack.getMetadata()), count, false);
     }
 
     /**
@@ -434,213 +850,218 @@ public class TileSpellArchive extends TileEntity {
     }
 
     /**
-     * Encodes a stack into a runtime key of the form "modid:item|meta".
+     * Resolves a stack to its spell ordinal (item + metadata), assigning one on first use.
      *
      * @param stack The stack to encode.
-     * @return The encoded key.
+     * @return The ordinal, or -1 if the stack cannot be indexed.
      */
-    private String keyOf(ItemStack stack) {
-        Item item = stack.getItem();
-        ResourceLocation rl = item.getRegistryName();
-        int meta = stack.getMetadata();
-
-        return rl + "|" + meta;
+    private int keyOf(ItemStack stack) {
+        return SpellKeyIndex.ordinalOf(stack.getItem(), stack.getMetadata());
     }
 
     /**
-     * Decodes a runtime key back into a 1-count ItemStack with the stored metadata.
-     * Returns ItemStack.EMPTY if the item cannot be resolved.
+     * Converts a spell ordinal to a spell registry name for NBT storage.
+     * Returns null if the spell cannot be resolved.
      *
-     * @param key The encoded key to decode.
-     * @return A 1-count stack for the key, or ItemStack.EMPTY if unknown.
+     * @param ordinal The spell ordinal to convert.
+     * @return The spell registry name, or null if not found.
      */
-    private ItemStack stackFromKey(String key) {
-        String[] parts = key.split("\\|", 2);
-        if (parts.length < 2) return ItemStack.EMPTY;
-
-        ResourceLocation rl = new ResourceLocation(parts[0]);
-        int meta = Integer.parseInt(parts[1]);
-
-        Item item = Item.REGISTRY.getObject(rl);
-        if (item == null) return ItemStack.EMPTY;
-
-        return new ItemStack(item, 1, meta);
+    private static String keyToSpellName(int ordinal) {
+        SpellInfo info = SpellKeyIndex.infoOf(ordinal);
+        return info != null ? info.getSpellName() : null;
     }
 
     /**
-     * Converts a runtime key (rl|meta) to a spell registry name for NBT storage.
-     * Returns null if the spell cannot be resolved.
+     * Converts a spell registry name from NBT back to a spell ordinal via {@link SpellCatalog},
+     * which maps every spell to its own book (e.g., Ancient Spellcraft elemental books).
+     * Returns -1 if the spell no longer exists.
      *
-     * @param key The runtime key to convert.
-     * @return The spell registry name, or null if not found.
+     * @param spellName The spell's registry name.
+     * @return The spell ordinal for the current environment, or -1 if unmapped.
      */
-    private static String keyToSpellName(String key) {
-        buildSpellMappings();
-
-        String[] parts = key.split("\\|", 2);
-        if (parts.length < 2) return null;
-
-        try {
-            int meta = Integer.parseInt(parts[1]);
-            return metadataToSpellName.get(meta);
-        } catch (NumberFormatException e) {
-            return null;
-        }
+    private static int spellNameToKey(String spellName) {
+        SpellInfo info = SpellCatalog.infoForName(spellName);
+        return info != null ? info.getOrdinal() : -1;
     }
 
     /**
-     * Converts a spell registry name from NBT back to a runtime key (rl|meta).
-     * Uses {@link Spell#applicableForItem} to find the correct spell book item for spells
-     * that may have multiple applicable books (e.g., Ancient Spellcraft elemental books).
-     * Returns null if the spell no longer exists.
+     * Serializes a spell type selection (export bus, comparator) as a list of spell names.
      *
-     * @param spellName The spell's registry name.
-     * @return The runtime key for the current environment, or null if unmapped.
+     * @param keys The selected types.
+     * @return The names of the types that still resolve.
      */
-    private static String spellNameToKey(String spellName) {
-        buildSpellMappings();
-        buildSpellBookIndex();
-
-        Integer meta = spellNameToMetadata.get(spellName);
-        if (meta == null) return null;
-
-        Spell spell = Spell.byMetadata(meta);
-        if (spell == null) return null;
-
-        // Find the correct spell book by checking applicableForItem on the spell
-        Item spellBook = null;
-        for (Item book : allSpellBooks) {
-            if (spell.applicableForItem(book)) {
-                spellBook = book;
-                break;
-            }
+    private static NBTTagList spellNamesOf(Collection<SpellKey> keys) {
+        NBTTagList spells = new NBTTagList();
+        for (SpellKey key : keys) {
+            String spellName = keyToSpellName(key.getOrdinal());
+            if (spellName != null) spells.appendTag(new NBTTagString(spellName));
         }
 
-        if (spellBook == null) spellBook = defaultSpellBook;
-        if (spellBook == null || spellBook.getRegistryName() == null) return null;
+        return spells;
+    }
 
-        return spellBook.getRegistryName() + "|" + meta;
+    /**
+     * Replaces a spell type selection with the types named in the list, skipping unmapped names.
+     *
+     * @param spells The list written by {@link #spellNamesOf}.
+     * @param keys The selection to refill.
+     */
+    private static void readSpellKeys(NBTTagList spells, Set<SpellKey> keys) {
+        keys.clear();
+        for (int i = 0; i < spells.tagCount(); i++) {
+            int ordinal = spellNameToKey(spells.getStringTagAt(i));
+            if (ordinal >= 0) keys.add(SpellKeyIndex.keyOf(ordinal));
+        }
     }
 
     /**
-     * Builds the cached list of all ItemSpellBook instances for use by {@link #spellNameToKey}.
-     * Safe to call repeatedly; initialization happens once on first use.
+     * Returns the total number of books stored matching the given stack's type.
+     *
+     * @param stack The spell book type.
+     * @return Stored count for the type (0 if none).
      */
-    private static void buildSpellBookIndex() {
-        if (allSpellBooks != null) return;
+    public int getCountFor(ItemStack stack) {
+        ensureDecoded();
+        return store.get(SpellKeyIndex.lookup(stack.getItem(), stack.getMetadata()));
+    }
 
-        List<Item> books = new ArrayList<>();
+    /**
+     * Returns the total number of books stored for the given key.
+     *
+     * @param key The spell key (may be null).
+     * @return Stored count for the type (0 if none).
+     */
+    public int getCountFor(SpellKey key) {
+        ensureDecoded();
+        return key == null ? 0 : store.get(key.getOrdinal());
+    }
 
-        for (ResourceLocation rl : Item.REGISTRY.getKeys()) {
-            Item item = Item.REGISTRY.getObject(rl);
-            if (item instanceof ItemSpellBook) books.add(item);
+    /**
+     * Returns an immutable copy of the stored counts (slot order, zero counts omitted) and
+     * aggregates at the current revision. The copy is built on the first call after a change
+     * and shared by every caller until the next one.
+     *
+     * @return The snapshot for the current revision.
+     */
+    public ArchiveSnapshot getSnapshot() {
+        ensureDecoded();
+
+        ArchiveSnapshot current = snapshot;
+        if (current == null || current.getRevision() != changeCounter) {
+            current = ArchiveSnapshot.of(store, changeCounter, identificationScrolls);
+            snapshot = current;
+            published = current;
         }
 
-        Item eb = Item.REGISTRY.getObject(new ResourceLocation("ebwizardry", "spell_book"));
-        if (eb instanceof ItemSpellBook) defaultSpellBook = eb;
-
-
-        allSpellBooks = books;
+        return current;
     }
 
-    // Fallback-safe namespace extraction that works across mappings
-    private static String getNamespaceSafe(ResourceLocation rl) {
-        if (rl == null) return "";
+    /**
+     * Returns the latest published snapshot of the contents. This is the supported way to read
+     * an archive (counts, aggregates, revision, scroll reserve) from threads other than the one
+     * owning the world, e.g. map renderers or async indexers. It only reads a volatile field:
+     * it never locks and never touches the live store, so it cannot block or race with the
+     * server tick. Obtain the archive reference itself on the server thread.
+     *
+     * On the server the first call requests publication, which happens at the end of the
+     * current server tick; from then on a fresh snapshot is published at the end of every tick
+     * in which the contents changed, so a snapshot trails the live contents by at most one tick.
+     * Client archives never request publication: their contents are only known while the archive
+     * GUI is open, and the snapshot is then published by the GUI's own reads.
+     *
+     * @return The latest published snapshot, or null until the first one is published.
+     */
+    @Nullable
+    public ArchiveSnapshot getPublishedSnapshot() {
+        ArchiveSnapshot current = published;
+        if (publishing) return current;
 
-        String s = rl.toString(); // namespace:path
-        int idx = s.indexOf(':');
+        // Only server archives in a world are ever drained; anything else would stay queued
+        if (world != null && !world.isRemote && !isInvalid() && publishQueued.compareAndSet(false, true)) ArchiveUpdateScheduler.requestPublish(this);
 
-        return idx >= 0 ? s.substring(0, idx) : "";
+        return current;
     }
 
-    private static String getPathSafe(ResourceLocation rl) {
-        if (rl == null) return "";
-
-        String s = rl.toString();
-        int idx = s.indexOf(':');
+    /**
+     * Publishes the snapshot of the current revision for other threads and keeps doing so
+     * after every flush. Server thread only; called by {@link ArchiveUpdateScheduler}.
+     */
+    void publishSnapshot() {
+        publishQueued.set(false);
+        if (world == null || world.isRemote || isInvalid()) return;
 
-        return idx >= 0 ? s.substring(idx + 1) : s;
+        getSnapshot();
+        publishing = true;
     }
 
     /**
-     * Update internal caches to ensure the given key is represented in the slot list
-     * and prototype map.
+     * Returns the number of distinct spell types present. Only meaningful on the client while
+     * the archive GUI is open; use {@link #getStripeCount()} for rendering.
      *
-     * @param key The runtime key to update.
-     * @param proto The prototype stack to use for the key (should not be null).
-     * @param oldSize Previous size of the counts map.
+     * @return The number of distinct types.
      */
-    private void updateCachedForKey(String key, ItemStack proto, int oldSize) {
-        // If the counts map grew, we have a new key and must create slot/prototype caches.
-        if (counts.size() != oldSize) {
-            slotKeys.add(key);
-
-            proto = proto.copy();
-            proto.setCount(1);
-            prototypesByKey.put(key, proto);
-        }
+    public int getDistinctSpellTypeCount() {
+        ensureDecoded();
+        return store.distinctCount();
     }
 
     /**
-     * Returns the total number of books stored matching the given stack's type.
+     * Returns the incrementally maintained aggregates (distinct types, total books, per-tier and
+     * per-element totals). The view is live and read-only.
      *
-     * @param stack The spell book type.
-     * @return Stored count for the type (0 if none).
+     * @return The archive statistics.
      */
-    public int getCountFor(ItemStack stack) {
-        String key = keyOf(stack);
-        return counts.getOrDefault(key, 0);
+    public ArchiveStats getStats() {
+        ensureDecoded();
+        return store;
     }
 
     /**
-     * Provides a snapshot copy of the internal counts map for safe client-side GUI rendering.
-     * Keys with zero counts are omitted.
+     * Returns the BOOKS stripe bucket (0..14) used by the block model to select a visual
+     * progression state. On the client this is the value received with the chunk data, since
+     * the contents themselves are only synced to players viewing the archive.
      *
-     * @return A new copy of the counts map.
+     * @return The stripe bucket.
      */
-    public Map<String, Integer> getSnapshot() {
-        LinkedHashMap<String, Integer> out = new LinkedHashMap<>();
-        for (HashMap.Entry<String, Integer> entry : counts.entrySet()) {
-            int count = entry.getValue();
-            if (count > 0) out.put(entry.getKey(), count);
-        }
+    public int getStripeCount() {
+        if (world != null && world.isRemote) return syncedStripes;
 
-        return out;
+        return stripesFor(decodePending ? pendingTypes : store.distinctCount());
     }
 
     /**
-     * Returns the number of distinct spell types present. Used by the block model to
-     * select a visual progression state.
+     * Scales a number of distinct spell types to the 0..14 stripe bucket, capped at 196 types.
      *
-     * @return The number of distinct types.
+     * @param types The number of distinct types.
+     * @return The stripe bucket.
      */
-    public int getDistinctSpellTypeCount() {
-        int ct = 0;
-        for (int c : counts.values()) {
-            if (c > 0) ct++;
-        }
+    public static int stripesFor(int types) {
+        if (types <= 0) return 0;
 
-        return ct;
+        return Math.min(14, (int) Math.ceil(types * 14.0 / 196.0));
     }
 
     /**
-     * Public adapter for GUI/network layers to reconstruct a stack from a runtime key.
+     * Public adapter for GUI/network layers to reconstruct a stack from a spell key.
      *
-     * @param key The runtime key.
-     * @return A 1-count stack or ItemStack.EMPTY if unknown.
+     * @param key The spell key (may be null).
+     * @return A new 1-count stack of that type, or ItemStack.EMPTY if not stored in this archive.
      */
-    public ItemStack stackFromKeyPublic(String key) {
-        return prototypesByKey.getOrDefault(key, ItemStack.EMPTY);
+    public ItemStack stackFromKeyPublic(SpellKey key) {
+        ensureDecoded();
+        if (key == null || store.get(key.getOrdinal()) <= 0) return ItemStack.EMPTY;
+
+        return SpellKeyIndex.prototypeOf(key.getOrdinal()).copy();
     }
 
     /**
-     * Public adapter for GUI/network layers to encode a stack into a runtime key.
+     * Public adapter for GUI/network layers to resolve a stack to its spell key.
      *
      * @param stack The stack to encode.
-     * @return The encoded key.
+     * @return The interned key, or null if the stack's type was never stored anywhere.
      */
-    public String keyOfPublic(ItemStack stack) {
-        return keyOf(stack);
+    public SpellKey keyOfPublic(ItemStack stack) {
+        return SpellKey.lookup(stack);
     }
 
     /**
@@ -650,51 +1071,10 @@ public class TileSpellArchive extends TileEntity {
      * @return A new list containing all known spell book mod ids.
      */
     public List<String> getSpellModIdsPublic() {
-        buildSpellBookIndex();
-
-        List<String> mods = new ArrayList<>();
-        if (allSpellBooks != null) {
-            for (Item book : allSpellBooks) {
-                ResourceLocation rl = book.getRegistryName();
-                if (rl != null) {
-                    String modid = getNamespaceSafe(rl);
-                    if (!mods.contains(modid)) mods.add(modid);
-                }
-            }
-        }
-
-        return mods;
+        return new ArrayList<>(SpellCatalog.getBookModIds());
     }
 
-    public Item getSpellBookForModPublic(Spell spell) {
-        buildSpellBookIndex();
-
-        for (Item book : allSpellBooks) {
-            if (spell.applicableForItem(book)) return book;
-        }
-
-        return defaultSpellBook;
-    }
-
-    // ---- GUI helpers (Wizardry-aware with graceful fallbacks) ----
-    // Local color palettes (fallback-safe across Wizardry versions)
-    private static final int[] TIER_COLORS = new int[]{
-        0x55FF55, // Novice
-        0x5555FF, // Apprentice
-        0xAA00AA, // Advanced
-        0xFFD700  // Master
-    };
-
-    private static final int[] ELEMENT_COLORS = new int[]{
-        0xE25822, // fire
-        0x22A1E2, // ice
-        0x7CFC00, // earth
-        0xAAAAAA, // necromancy
-        0x00CED1, // sorcery
-        0xFFA500, // lightning
-        0xFF69B4, // healing
-        0x8A2BE2  // arcane
-    };
+    // ---- GUI helpers (Wizardry-aware with graceful fallbacks) ----
 
     /**
      * Returns the Wizardry tier ordinal for the spell contained in the given stack.
@@ -704,10 +1084,8 @@ public class TileSpellArchive extends TileEntity {
      * @return The tier ordinal (0..n).
      */
     public int getTierOf(ItemStack stack) {
-        Spell spell = getSpell(stack);
-        if (spell == null) return 0;
-
-        return spell.getTier().ordinal();
+        SpellInfo info = getInfo(stack);
+        return info != null ? info.getTier() : 0;
     }
 
     /**
@@ -718,10 +1096,8 @@ public class TileSpellArchive extends TileEntity {
      * @return The element ordinal (0..n).
      */
     public int getElementOf(ItemStack stack) {
-        Spell spell = getSpell(stack);
-        if (spell == null) return 0;
-
-        return spell.getElement().ordinal();
+        SpellInfo info = getInfo(stack);
+        return info != null ? info.getElement() : 0;
     }
 
     /**
@@ -731,9 +1107,8 @@ public class TileSpellArchive extends TileEntity {
      * @return ARGB color integer.
      */
     public int getRarityColor(ItemStack stack) {
-        int idx = Math.max(0, Math.min(getTierOf(stack), TIER_COLORS.length - 1));
-
-        return TIER_COLORS[idx];
+        SpellInfo info = getInfo(stack);
+        return info != null ? info.getRarityColor() : 0x55FF55;
     }
 
     /**
@@ -743,9 +1118,19 @@ public class TileSpellArchive extends TileEntity {
      * @return ARGB color integer.
      */
     public int getElementColor(ItemStack stack) {
-        int idx = Math.max(0, getElementOf(stack)) % ELEMENT_COLORS.length;
+        SpellInfo info = getInfo(stack);
+        return info != null ? info.getElementColor() : 0xE25822;
+    }
 
-        return ELEMENT_COLORS[idx];
+    /**
+     * Returns the namespace of the stack's spell book item, used by the GUI's mod filter.
+     *
+     * @param stack The spell book stack.
+     * @return The mod id, or "unknown".
+     */
+    public String getModIdOf(ItemStack stack) {
+        SpellInfo info = getInfo(stack);
+        return info != null ? info.getModId() : "unknown";
     }
 
     /**
@@ -763,6 +1148,23 @@ public class TileSpellArchive extends TileEntity {
         return spell.getDisplayNameWithFormatting();
     }
 
+    /**
+     * Resolves the precomputed spell facts for a stack: one identity lookup and one array index
+     * for any type already seen; other spell books are indexed on first use.
+     *
+     * @param stack The spell book stack.
+     * @return The info, or null if the stack is not a spell book.
+     */
+    @Nullable
+    private SpellInfo getInfo(ItemStack stack) {
+        if (stack.isEmpty()) return null;
+
+        int ordinal = SpellKeyIndex.lookup(stack.getItem(), stack.getMetadata());
+        if (ordinal < 0 && isSpellBook(stack)) ordinal = keyOf(stack);
+
+        return SpellKeyIndex.infoOf(ordinal);
+    }
+
     /**
      * Resolves the Wizardry spell instance from a spell book stack.
      *
@@ -770,9 +1172,8 @@ public class TileSpellArchive extends TileEntity {
      * @return The spell, or null if the stack is not a spell book or cannot be mapped.
      */
     private Spell getSpell(ItemStack stack) {
-        if (!isSpellBook(stack)) return null;
-
-        return Spell.byMetadata(stack.getItemDamage());
+        SpellInfo info = getInfo(stack);
+        return info != null ? info.getSpell() : null;
     }
 
     /**
@@ -803,7 +1204,20 @@ public class TileSpellArchive extends TileEntity {
 
     /**
      * Serializes the archive contents to NBT. Spells are persisted by spell registry name to
-     * be resilient to item metadata reassignments.
+     * be resilient to item metadata reassignments, using the compact format: a per-save
+     * dictionary of spell names plus a parallel int array of counts (entry i of the array is the
+     * count of dictionary entry i).
+     *
+     * The payload is rebuilt only when the change counter moved since the last call (every
+     * mutation, including the scroll reserve, bumps it); otherwise copies of the cached payload
+     * are written, as the destination compound may be changed or serialized elsewhere (chunk IO
+     * thread, item drops). An archive that was loaded and never changed writes back the payload
+     * it was read from without ever decoding it.
+     *
+     * Client tiles only know what the chunk update tag carries (the stripe bucket and the scroll
+     * reserve), as the contents are streamed to GUI viewers only; they write just that and no
+     * contents at all, so a client-side copy (e.g., creative pick-block with ctrl) never passes
+     * for a stale or partial copy of the archive.
      *
      * @param compound Destination NBT compound to write into.
      * @return The same compound for chaining.
@@ -812,29 +1226,81 @@ public class TileSpellArchive extends TileEntity {
     public NBTTagCompound writeToNBT(NBTTagCompound compound) {
         super.writeToNBT(compound);
 
-        NBTTagList list = new NBTTagList();
-        for (HashMap.Entry<String, Integer> entry : counts.entrySet()) {
-            String spellName = keyToSpellName(entry.getKey());
+        if (world != null && world.isRemote) {
+            compound.setByte("stripes", (byte) syncedStripes);
+            compound.setInteger("id_scrolls", this.identificationScrolls);
 
-            if (spellName != null) {
-                NBTTagCompound tag = new NBTTagCompound();
-                tag.setString("spell", spellName);
-                tag.setInteger("count", entry.getValue());
-                list.appendTag(tag);
-            }
+            return compound;
         }
-        compound.setTag("spells", list);
-        compound.setInteger("rev", this.changeCounter);
+
+        if (cachedDict == null || cachedRevision != changeCounter) rebuildSerializedContents();
+
+        compound.setByte("fmt", NBT_FORMAT_COMPACT);
+        compound.setTag("dict", cachedDict.copy());
+        compound.setIntArray("counts", cachedCounts.clone());
+
+        // Summary for readers that do not need the contents (e.g., the item tooltip)
+        compound.setInteger("types", decodePending ? pendingTypes : store.getDistinctTypes());
+        compound.setLong("total", decodePending ? pendingTotal : store.getTotalBooks());
 
         compound.setInteger("id_scrolls", this.identificationScrolls);
+        compound.setInteger("rev", this.changeCounter);
+
+        byte[] faces = new byte[faceModes.length];
+        boolean restricted = false;
+        for (int i = 0; i < faceModes.length; i++) {
+            faces[i] = (byte) faceModes[i].ordinal();
+            restricted |= faceModes[i] != ArchiveFaceMode.BOTH;
+        }
+        if (restricted) compound.setByteArray("face_modes", faces);
+
+        if (importFace != null) compound.setByte("import_face", (byte) importFace.getIndex());
+        if (comparatorMetric != ComparatorMetric.TYPES) compound.setByte("comparator", (byte) comparatorMetric.ordinal());
+        if (!comparatorFilter.isEmpty()) compound.setTag("comparator_spells", spellNamesOf(comparatorFilter));
+
+        if (exportFace != null || exportKeep > 0 || !exportFilter.isEmpty()) {
+            NBTTagCompound export = new NBTTagCompound();
+            export.setByte("face", (byte) (exportFace != null ? exportFace.getIndex() : -1));
+            export.setInteger("keep", exportKeep);
+            export.setTag("spells", spellNamesOf(exportFilter));
+
+            compound.setTag("export", export);
+        }
 
         return compound;
     }
 
     /**
-     * Deserializes archive contents from NBT. Attempts to map spell registry names back to
-     * the current spell book item/metadata; unknown spells (e.g., from missing mods) are
-     * reported and skipped.
+     * Builds the dictionary and count array for the current contents and stamps them with the
+     * current change counter.
+     */
+    private void rebuildSerializedContents() {
+        ensureDecoded();
+        NBTTagList dict = new NBTTagList();
+        int[] counts = new int[store.slotCount()];
+        int n = 0;
+        for (int slot = 0; slot < store.slotCount(); slot++) {
+            int ordinal = store.ordinalAt(slot);
+            int count = store.get(ordinal);
+            if (count <= 0) continue;  // dead slot awaiting compaction
+
+            String spellName = keyToSpellName(ordinal);
+            if (spellName != null) {
+                dict.appendTag(new NBTTagString(spellName));
+                counts[n++] = count;
+            }
+        }
+
+        cachedDict = dict;
+        cachedCounts = n == counts.length ? counts : Arrays.copyOf(counts, n);
+        cachedRevision = changeCounter;
+    }
+
+    /**
+     * Deserializes archive contents from NBT, in either the compact format or the legacy
+     * {@code spells} list of {spell, count} compounds (upgraded on the next save). Attempts to
+     * map spell registry names back to the current spell book item/metadata; unknown spells
+     * (e.g., from missing mods) are reported and skipped.
      *
      * @param compound Source NBT compound to read from.
      */
@@ -843,49 +1309,133 @@ public class TileSpellArchive extends TileEntity {
         super.readFromNBT(compound);
 
         // Clear all slot-backed structures
-        slotKeys.clear();
-        prototypesByKey.clear();
-        counts.clear();
-
-        if (compound.hasKey("spells")) {
+        store.clear();
+        Arrays.fill(viewStacks, null);
+        cachedDict = null;
+        cachedCounts = null;
+        decodePending = false;
+
+        int unmappedCount = 0;
+        Map<String, Long> unmappedByMod = new LinkedHashMap<>();
+
+        if (compound.getByte("fmt") >= NBT_FORMAT_COMPACT) {
+            // Keep a copy of the payload as the serialized cache and decode it on first use (see
+            // ensureDecoded). Payloads saved without the summary are decoded right away.
+            cachedDict = compound.getTagList("dict", 8).copy();
+            cachedCounts = compound.getIntArray("counts").clone();
+            pendingTypes = compound.getInteger("types");
+            pendingTotal = compound.getLong("total");
+            decodePending = true;
+            if (!compound.hasKey("types")) ensureDecoded();
+        } else if (compound.hasKey("spells")) {
             NBTTagList list = compound.getTagList("spells", 10);
-            int unmappedCount = 0;
-            Map<String, Long> unmappedByMod = new LinkedHashMap<>();
 
             for (int i = 0; i < list.tagCount(); i++) {
                 NBTTagCompound tag = list.getCompoundTagAt(i);
                 String spellName = tag.getString("spell");
                 int count = tag.getInteger("count");
 
-                // Convert spell name to runtime key
-                String runtimeKey = spellNameToKey(spellName);
-
-                ItemStack proto = null;
-                if (runtimeKey != null) proto = stackFromKey(runtimeKey);
-
-                if (runtimeKey == null || proto == null || proto.isEmpty()) {
-                    // unmapped spell (mod removed or spell deleted)
+                if (!restoreEntry(spellName, count)) {
                     unmappedCount++;
                     String modid = spellName.contains(":") ? spellName.split(":", 2)[0] : "unknown";
                     unmappedByMod.put(modid, unmappedByMod.getOrDefault(modid, 0L) + count);
-                } else {
-                    // create caches for this runtime key using the decoded prototype
-                    counts.put(runtimeKey, count);
-                    updateCachedForKey(runtimeKey, proto, 0);  // everything is new at this point, so oldSize=0
                 }
             }
+        }
 
-            if (unmappedCount > 0) {
-                SpellArchives.LOGGER.warn("Spellcaster's Archives at " + pos + " failed to map " + unmappedCount + " spell(s) from removed mods:");
-                for (Map.Entry<String, Long> entry : unmappedByMod.entrySet()) {
-                    SpellArchives.LOGGER.warn("  - Mod '" + entry.getKey() + "': " + entry.getValue() + " book(s)");
-                }
+        logUnmapped(unmappedCount, unmappedByMod);
+
+        // A reload is a content change like any other, but one the change journal cannot
+        // describe. Continue from the saved revision so revisions handed out before the chunk
+        // unloaded can never match changes made after it reloads
+        this.changeCounter = Math.max(this.changeCounter, compound.getInteger("rev")) + 1;
+        journal.reset(changeCounter);
+        this.resyncRequested = false;
+        if (cachedDict != null) cachedRevision = changeCounter;
+
+        this.identificationScrolls = compound.getInteger("id_scrolls");
+
+        byte[] faces = compound.getByteArray("face_modes");
+        for (int i = 0; i < faceModes.length; i++) {
+            faceModes[i] = ArchiveFaceMode.byOrdinal(i < faces.length ? faces[i] : 0);
+        }
+
+        int importFaceIndex = compound.hasKey("import_face") ? compound.getByte("import_face") : -1;
+        this.importFace = importFaceIndex >= 0 && importFaceIndex < EnumFacing.VALUES.length ? EnumFacing.byIndex(importFaceIndex) : null;
+        this.comparatorMetric = ComparatorMetric.byOrdinal(compound.getByte("comparator"));
+        readSpellKeys(compound.getTagList("comparator_spells", 8), comparatorFilter);
+        this.comparatorLevel = -1;
+
+        NBTTagCompound export = compound.getCompoundTag("export");
+        int exportFaceIndex = export.hasKey("face") ? export.getByte("face") : -1;
+        this.exportFace = exportFaceIndex >= 0 && exportFaceIndex < EnumFacing.VALUES.length ? EnumFacing.byIndex(exportFaceIndex) : null;
+        this.exportKeep = Math.max(0, export.getInteger("keep"));
+        readSpellKeys(export.getTagList("spells", 8), exportFilter);
+
+        if (loaded) ensureDecoded();
+        if (loaded && publishing) getSnapshot();
+
+        // Contents were replaced wholesale: deltas cannot describe that, resend everything
+        this.lastSyncedRevision = this.changeCounter;
+        for (EntityPlayerMP viewer : viewers) sendFullSync(viewer);
+    }
+
+    /**
+     * Decodes the payload kept by {@link #readFromNBT} into the store. Called on first use of
+     * the contents (capabilities, GUI, transactions, comparators, active I/O); archives in
+     * chunks that stay loaded but untouched never resolve their spell names. If every entry
+     * mapped, the kept payload stays valid as the serialized cache; otherwise it is dropped, so
+     * the next save rebuilds it from the store without the unmapped entries, as eager loading
+     * does, and the saved summary matches the saved payload.
+     */
+    private void ensureDecoded() {
+        if (!decodePending) return;
+
+        decodePending = false;
+
+        int unmappedCount = 0;
+        Map<String, Long> unmappedByMod = new LinkedHashMap<>();
+        int n = Math.min(cachedDict.tagCount(), cachedCounts.length);
+        for (int i = 0; i < n; i++) {
+            String spellName = cachedDict.getStringTagAt(i);
+            if (!restoreEntry(spellName, cachedCounts[i])) {
+                unmappedCount++;
+                String modid = spellName.contains(":") ? spellName.split(":", 2)[0] : "unknown";
+                unmappedByMod.put(modid, unmappedByMod.getOrDefault(modid, 0L) + cachedCounts[i]);
             }
         }
 
-        this.changeCounter = compound.getInteger("rev");
+        logUnmapped(unmappedCount, unmappedByMod);
+        if (unmappedCount > 0) {
+            cachedDict = null;
+            cachedCounts = null;
+        }
+    }
+
+    private void logUnmapped(int unmappedCount, Map<String, Long> unmappedByMod) {
+        if (unmappedCount <= 0) return;
 
-        this.identificationScrolls = compound.getInteger("id_scrolls");
+        SpellArchives.LOGGER.warn("Spellcaster's Archives at " + pos + " failed to map " + unmappedCount + " spell(s) from removed mods:");
+        for (Map.Entry<String, Long> entry : unmappedByMod.entrySet()) {
+            SpellArchives.LOGGER.warn("  - Mod '" + entry.getKey() + "': " + entry.getValue() + " book(s)");
+        }
+    }
+
+    /**
+     * Restores one persisted entry into the store.
+     *
+     * @param spellName The spell registry name.
+     * @param count The stored count.
+     * @return False if the spell could not be mapped (mod removed or spell deleted).
+     */
+    private boolean restoreEntry(String spellName, int count) {
+        // Convert spell name to runtime ordinal
+        int ordinal = spellNameToKey(spellName);
+        if (ordinal < 0) return false;
+
+        store.set(ordinal, count);
+
+        return true;
     }
 
     /**
@@ -909,15 +1459,21 @@ public class TileSpellArchive extends TileEntity {
     public boolean hasCapability(Capability<?> capability, EnumFacing facing) {
         if (suppressCap) return false;
 
-        if (capability == CapabilityItemHandler.ITEM_HANDLER_CAPABILITY) return true;
+        boolean disabled = facing != null && faceModes[facing.getIndex()] == ArchiveFaceMode.DISABLED;
+
+        if (capability == CapabilityItemHandler.ITEM_HANDLER_CAPABILITY) return !disabled;
 
-        if (SD_REPO_CAP != null && capability == SD_REPO_CAP) return true;
+        if (SD_REPO_CAP != null && capability == SD_REPO_CAP) return !disabled;
+
+        if (CapabilityArchiveChangeTracker.CHANGE_TRACKER != null && capability == CapabilityArchiveChangeTracker.CHANGE_TRACKER) return true;
 
         return super.hasCapability(capability, facing);
     }
 
     /**
-     * Provides the single shared handler instance for supported capabilities.
+     * Provides the handler for supported capabilities. Faces in BOTH mode (and the null side)
+     * get the shared handler, restricted faces their cached {@link FaceHandler}, and disabled
+     * faces nothing.
      *
      * @param capability The requested capability type.
      * @param facing The side (may be null).
@@ -928,13 +1484,409 @@ public class TileSpellArchive extends TileEntity {
     public <T> T getCapability(Capability<T> capability, EnumFacing facing) {
         if (suppressCap) return null;
 
-        if (capability == CapabilityItemHandler.ITEM_HANDLER_CAPABILITY) return (T) itemHandler;
+        ArchiveFaceMode mode = facing != null ? faceModes[facing.getIndex()] : ArchiveFaceMode.BOTH;
+
+        if (capability == CapabilityItemHandler.ITEM_HANDLER_CAPABILITY) {
+            if (mode == ArchiveFaceMode.DISABLED) return null;
+
+            ensureDecoded();
+            if (mode != ArchiveFaceMode.BOTH) return (T) faceHandler(facing);
+
+            return (T) (SpellArchivesConfig.isSparseSlotViewEnabled() ? sparseHandler : itemHandler);
+        }
+
+        if (SD_REPO_CAP != null && capability == SD_REPO_CAP) {
+            if (mode == ArchiveFaceMode.DISABLED) return null;
 
-        if (SD_REPO_CAP != null && capability == SD_REPO_CAP) return (T) itemHandler;
+            ensureDecoded();
+            return (T) (mode == ArchiveFaceMode.BOTH ? itemHandler : faceHandler(facing));
+        }
+
+        if (CapabilityArchiveChangeTracker.CHANGE_TRACKER != null && capability == CapabilityArchiveChangeTracker.CHANGE_TRACKER) return (T) changeTracker;
 
         return super.getCapability(capability, facing);
     }
 
+    /**
+     * @return The face the export bus pushes into, or null if exporting is off.
+     */
+    @Nullable
+    public EnumFacing getExportFace() {
+        return exportFace;
+    }
+
+    /**
+     * @return The number of books of each type the export bus leaves in the archive.
+     */
+    public int getExportKeep() {
+        return exportKeep;
+    }
+
+    /**
+     * @return The spell types the export bus pushes (read-only; empty means every type).
+     */
+    public Set<SpellKey> getExportFilter() {
+        return Collections.unmodifiableSet(exportFilter);
+    }
+
+    /**
+     * @return The face the archive pulls books from, or null if importing is off.
+     */
+    @Nullable
+    public EnumFacing getImportFace() {
+        return importFace;
+    }
+
+    /**
+     * @return What the comparator output of this archive measures.
+     */
+    public ComparatorMetric getComparatorMetric() {
+        return comparatorMetric;
+    }
+
+    /**
+     * @return The spell types counted by the {@link ComparatorMetric#SELECTED} metric (read-only).
+     */
+    public Set<SpellKey> getComparatorFilter() {
+        return Collections.unmodifiableSet(comparatorFilter);
+    }
+
+    /**
+     * Replaces the active I/O settings. On the server the archive is saved, rescheduled
+     * immediately (resetting both backoffs) and the new settings are sent to every viewer.
+     *
+     * @param face The face to push into, or null to turn exporting off.
+     * @param keep Books of each type to keep back (negative values are treated as zero).
+     * @param filter The spell types to export; empty exports every type.
+     * @param pullFace The face to pull spell books and scrolls from, or null to turn importing off.
+     * @param metric What the comparator output measures.
+     * @param watched The spell types the {@link ComparatorMetric#SELECTED} metric counts.
+     * @param modes The automation mode of each face, indexed by {@link EnumFacing#getIndex()}.
+     */
+    public void setIoSettings(@Nullable EnumFacing face, int keep, Collection<SpellKey> filter, @Nullable EnumFacing pullFace, ComparatorMetric metric, Collection<SpellKey> watched, ArchiveFaceMode[] modes) {
+        boolean modesChanged = !Arrays.equals(faceModes, modes);
+        System.arraycopy(modes, 0, faceModes, 0, faceModes.length);
+        this.exportFace = face;
+        this.exportKeep = Math.max(0, keep);
+        this.exportFilter.clear();
+        this.exportFilter.addAll(filter);
+        this.importFace = pullFace;
+        this.comparatorMetric = metric;
+        this.comparatorFilter.clear();
+        this.comparatorFilter.addAll(watched);
+
+        if (world == null || world.isRemote) return;
+
+        world.markChunkDirty(pos, this);
+        // Pipes re-query the capability of a face only when told its neighbor changed
+        if (modesChanged) world.notifyNeighborsOfStateChange(pos, getBlockType(), false);
+        updateComparatorLevel();
+        this.exportDelay = 0;
+        this.exportDue = 0;
+        this.importDelay = 0;
+        this.importDue = 0;
+        if (exportFace != null || importFace != null) ArchiveIoScheduler.schedule(this, 1);
+        else ArchiveIoScheduler.cancel(this);
+
+        MessageArchiveIoSettings message = buildIoSettingsMessage();
+        for (EntityPlayerMP viewer : viewers) NetworkHandler.CHANNEL.sendTo(message, viewer);
+    }
+
+    private MessageArchiveIoSettings buildIoSettingsMessage() {
+        return new MessageArchiveIoSettings(pos, exportFace, exportKeep, new ArrayList<>(exportFilter), importFace, comparatorMetric, new ArrayList<>(comparatorFilter), faceModes);
+    }
+
+    /**
+     * Returns the comparator output for the configured metric, as last published to comparators.
+     *
+     * @return The comparator level (0..15).
+     */
+    public int getComparatorLevel() {
+        if (comparatorLevel < 0) comparatorLevel = computeComparatorLevel();
+
+        return comparatorLevel;
+    }
+
+    /**
+     * Recomputes the comparator level and notifies adjacent comparators only if it changed, so
+     * content changes that do not move the quantized value cost no neighbor updates.
+     */
+    private void updateComparatorLevel() {
+        int level = computeComparatorLevel();
+        if (level == comparatorLevel) return;
+
+        comparatorLevel = level;
+        world.updateComparatorOutputLevel(pos, getBlockType());
+    }
+
+    /**
+     * Maps the configured metric to 0..15 from the store aggregates. Counts are scaled by one
+     * level per doubling, fills linearly; any non-empty measure gives at least 1.
+     *
+     * @return The comparator level.
+     */
+    private int computeComparatorLevel() {
+        ensureDecoded();
+        switch (comparatorMetric) {
+            case BOOKS:
+                return doublingLevel(store.getTotalBooks());
+
+            case SCROLLS: {
+                int max = SpellArchivesConfig.getScrollReserveMax();
+                if (max < 0) return doublingLevel(identificationScrolls);
+                if (identificationScrolls <= 0) return 0;
+
+                return Math.min(15, 1 + (int) ((long) identificationScrolls * 14 / Math.max(1, max)));
+            }
+
+            case SELECTED: {
+                long selected = 0;
+                for (SpellKey key : comparatorFilter) selected += store.get(key.getOrdinal());
+
+                return doublingLevel(selected);
+            }
+
+            default: {
+                int types = store.distinctCount();
+                if (types <= 0) return 0;
+
+                return Math.min(15, 1 + (int) ((long) types * 14 / Math.max(1, SpellCatalog.getSpellCount())));
+            }
+        }
+    }
+
+    private static int doublingLevel(long count) {
+        return count <= 0 ? 0 : Math.min(15, 64 - Long.numberOfLeadingZeros(count));
+    }
+
+    /**
+     * Runs whichever of export and import is due; called by {@link ArchiveIoScheduler}. Each
+     * direction backs off on its own: the delay resets to the minimum interval after a run that
+     * moved books and doubles (up to the maximum) after one that did not.
+     *
+     * @return The delay in ticks until the next direction is due, or 0 to stop scheduling.
+     */
+    int runScheduledIo() {
+        if (world == null || world.isRemote || (exportFace == null && importFace == null)) return 0;
+
+        ensureDecoded();
+
+        long now = world.getTotalWorldTime();
+
+        if (exportFace != null && now >= exportDue) {
+            exportDelay = nextIoDelay(exportToNeighbor() > 0, exportDelay);
+            exportDue = now + exportDelay;
+        }
+
+        if (importFace != null && now >= importDue) {
+            importDelay = nextIoDelay(importFromNeighbor() > 0, importDelay);
+            importDue = now + importDelay;
+        }
+
+        long next = Long.MAX_VALUE;
+        if (exportFace != null) next = Math.min(next, exportDue);
+        if (importFace != null) next = Math.min(next, importDue);
+
+        return (int) Math.max(1, next - now);
+    }
+
+    private static int nextIoDelay(boolean moved, int delay) {
+        int min = SpellArchivesConfig.getIoMinInterval();
+        int max = Math.max(min, SpellArchivesConfig.getIoMaxInterval());
+
+        return moved ? min : Math.min(max, Math.max(min, delay * 2));
+    }
+
+    /**
+     * Called by the block on a block update next to it. A block update of the import source wakes
+     * a backed-off import on the next tick; changes caused by the archive's own pulls do not, as
+     * the import is then already running at the minimum interval. Content changes of the source
+     * cause no block update, so they are picked up by the backed-off poll.
+     *
+     * @param neighbor Position of the changed neighbor.
+     */
+    public void onNeighborChanged(BlockPos neighbor) {
+        if (world == null || world.isRemote || importFace == null) return;
+        if (!neighbor.equals(pos.offset(importFace))) return;
+        if (importDelay <= SpellArchivesConfig.getIoMinInterval()) return;
+
+        importDelay = 0;
+        importDue = 0;
+        ArchiveIoScheduler.schedule(this, 1);
+    }
+
+    /**
+     * Pulls up to one batch of spell books and identification scrolls from the item handler next
+     * to the import face, merging them into the store as one transaction. Scrolls are only taken
+     * up to the free reserve capacity.
+     *
+     * @return The number of items moved.
+     */
+    private int importFromNeighbor() {
+        BlockPos source = pos.offset(importFace);
+        if (!world.isBlockLoaded(source)) return 0;
+
+        TileEntity te = world.getTileEntity(source);
+        if (te == null || !te.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, importFace.getOpposite())) return 0;
+
+        IItemHandler src = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, importFace.getOpposite());
+        if (src == null) return 0;
+
+        int batch = SpellArchivesConfig.getIoBatchSize();
+        int moved = 0;
+
+        beginBatch();
+        try {
+            for (int slot = 0; slot < src.getSlots() && moved < batch; slot++) {
+                ItemStack peek = src.getStackInSlot(slot);
+                if (peek.isEmpty()) continue;
+
+                int want = Math.min(peek.getCount(), batch - moved);
+                if (isIdentificationScroll(peek)) {
+                    want = Math.min(want, itemHandler.getRemainingItemCapacity(peek, null));
+                } else if (!isSpellBook(peek)) {
+                    continue;
+                }
+                if (want <= 0) continue;
+
+                ItemStack taken = src.extractItem(slot, want, false);
+                if (taken.isEmpty()) continue;
+
+                ItemStack rem = itemHandler.insertStack(taken, false);
+                moved += taken.getCount() - rem.getCount();
+
+                // Should not happen (capacity was checked), but never lose items
+                if (!rem.isEmpty()) {
+                    rem = ItemHandlerHelper.insertItem(src, rem, false);
+                    if (!rem.isEmpty()) InventoryHelper.spawnItemStack(world, pos.getX(), pos.getY() + 1, pos.getZ(), rem);
+                }
+            }
+        } finally {
+            endBatch();
+        }
+
+        return moved;
+    }
+
+    /**
+     * Pushes up to one batch of books into the item handler next to the export face, as one
+     * transaction (a single change notification).
+     *
+     * @return The number of books moved.
+     */
+    private int exportToNeighbor() {
+        BlockPos target = pos.offset(exportFace);
+        if (!world.isBlockLoaded(target)) return 0;
+
+        TileEntity te = world.getTileEntity(target);
+        if (te == null || !te.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, exportFace.getOpposite())) return 0;
+
+        IItemHandler dest = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, exportFace.getOpposite());
+        if (dest == null) return 0;
+
+        int batch = SpellArchivesConfig.getIoBatchSize();
+        int moved = 0;
+
+        beginBatch();
+        try {
+            if (exportFilter.isEmpty()) {
+                for (int slot = 0; slot < store.slotCount() && moved < batch; slot++) {
+                    int sent = exportOrdinal(store.ordinalAt(slot), dest, batch - moved);
+                    if (sent < 0) break;
+
+                    moved += sent;
+                }
+            } else {
+                for (SpellKey key : exportFilter) {
+                    if (moved >= batch) break;
+
+                    int sent = exportOrdinal(key.getOrdinal(), dest, batch - moved);
+                    if (sent < 0) break;
+
+                    moved += sent;
+                }
+            }
+        } finally {
+            endBatch();
+        }
+
+        return moved;
+    }
+
+    /**
+     * Moves the surplus above the keep amount of one type into the destination.
+     *
+     * @param ordinal Spell ordinal.
+     * @param dest Destination handler.
+     * @param limit Maximum number of books to move.
+     * @return The number of books moved, or -1 if the destination accepted none (treated as full).
+     */
+    private int exportOrdinal(int ordinal, IItemHandler dest, int limit) {
+        int surplus = store.get(ordinal) - exportKeep;
+        if (surplus <= 0) return 0;
+
+        ItemStack out = SpellKeyIndex.prototypeOf(ordinal).copy();
+        out.setCount(Math.min(surplus, limit));
+
+        ItemStack rem = ItemHandlerHelper.insertItemStacked(dest, out, false);
+        int sent = out.getCount() - rem.getCount();
+        if (sent <= 0) return -1;
+
+        store.remove(ordinal, sent);
+        onContentsChanged(ordinal);
+
+        return sent;
+    }
+
+    /**
+     * Accounts for one automation operation against the per-tick budget.
+     *
+     * @param amount Number of items the operation wants to move.
+     * @return The number of items it may move (0 once the budget is exhausted).
+     */
+    private int budgetAllowance(int amount) {
+        int maxOps = SpellArchivesConfig.getAutomationOpsPerTick();
+        int maxItems = SpellArchivesConfig.getAutomationItemsPerTick();
+        if ((maxOps <= 0 && maxItems <= 0) || world == null) return amount;
+
+        return budget.allow(world.getTotalWorldTime(), amount, maxOps, maxItems);
+    }
+
+    private void chargeBudget(int moved) {
+        if (moved > 0) budget.charge(moved);
+    }
+
+    /**
+     * @return The number of automation operations refused by the per-tick budget since load.
+     */
+    public long getBudgetRefusedOps() {
+        return budget.getRefusedOps();
+    }
+
+    /**
+     * @return The number of ticks in which the per-tick automation budget ran out since load.
+     */
+    public long getBudgetLimitedTicks() {
+        return budget.getLimitedTicks();
+    }
+
+    private FaceHandler faceHandler(EnumFacing facing) {
+        FaceHandler handler = faceHandlers[facing.getIndex()];
+        if (handler == null) {
+            handler = new FaceHandler(facing);
+            faceHandlers[facing.getIndex()] = handler;
+        }
+
+        return handler;
+    }
+
+    /**
+     * @return A copy of the automation modes of all faces, indexed by {@link EnumFacing#getIndex()}.
+     */
+    public ArchiveFaceMode[] getFaceModes() {
+        return faceModes.clone();
+    }
+
     /**
      * Called by the block right before scheduling end-of-tick removal to temporarily
      * hide capabilities during neighbor updates.
@@ -958,15 +1910,32 @@ public class TileSpellArchive extends TileEntity {
         return oldState.getBlock() != newState.getBlock();
     }
 
-    // ---- Client sync ----
     /**
-     * Creates the update NBT payload used for client synchronization.
+     * Creates the update NBT payload sent with the chunk. It only carries what the world render
+     * needs (the stripe bucket) and the identification scroll reserve; the contents stream
+     * separately to players viewing the archive (see {@link #addViewer}).
      *
-     * @return The NBT payload representing current state.
+     * @return The NBT payload representing current visual state.
      */
     @Override
     public NBTTagCompound getUpdateTag() {
-        return writeToNBT(new NBTTagCompound());
+        NBTTagCompound tag = super.writeToNBT(new NBTTagCompound());
+        tag.setByte("stripes", (byte) getStripeCount());
+        tag.setInteger("id_scrolls", this.identificationScrolls);
+
+        return tag;
+    }
+
+    /**
+     * Applies the chunk update tag on the client. Only reads the fields written by
+     * {@link #getUpdateTag()} so the contents known to an open GUI are left untouched.
+     *
+     * @param tag The update tag.
+     */
+    @Override
+    public void handleUpdateTag(NBTTagCompound tag) {
+        super.readFromNBT(tag);
+        readUpdateTag(tag);
     }
 
     /**
@@ -988,23 +1957,369 @@ public class TileSpellArchive extends TileEntity {
      */
     @Override
     public void onDataPacket(NetworkManager net, SPacketUpdateTileEntity pkt) {
-        readFromNBT(pkt.getNbtCompound());
+        int oldStripes = syncedStripes;
+        readUpdateTag(pkt.getNbtCompound());
 
         // Force a client-side re-render so the block state is re-queried and the correct model variant is selected
-        if (world != null) world.markBlockRangeForRenderUpdate(getPos(), getPos());
+        if (world != null && oldStripes != syncedStripes) world.markBlockRangeForRenderUpdate(getPos(), getPos());
+    }
+
+    private void readUpdateTag(NBTTagCompound tag) {
+        this.syncedStripes = tag.getByte("stripes");
+        this.identificationScrolls = tag.getInteger("id_scrolls");
     }
 
     /**
-     * Marks the tile dirty and notifies the world/clients that the archive contents have
-     * changed. Also increments the change counter for GUI cache invalidation.
+     * Records a content change that does not concern a particular spell type (e.g., the
+     * identification scroll reserve).
      */
     private void onContentsChanged() {
-        markDirty();
-        if (world != null && !world.isRemote) {
-            this.changeCounter++;
-            IBlockState state = world.getBlockState(getPos());
-            world.notifyBlockUpdate(getPos(), state, state, 3);
-            world.scheduleBlockUpdate(getPos(), state.getBlock(), 1, 0);
+        onContentsChanged(-1);
+    }
+
+    /**
+     * Records a content change. The change counter is incremented immediately so revision-based
+     * readers stay exact; the save marking, client sync and comparator update are deferred to
+     * the end of the server tick (see {@link ArchiveUpdateScheduler}) unless coalescing is
+     * disabled in the config, and to the commit of the enclosing {@link ArchiveTransaction}.
+     *
+     * @param ordinal The changed spell ordinal, or -1 if no spell count changed.
+     */
+    private void onContentsChanged(int ordinal) {
+        // Bumped on every side: the serialized-contents cache of detached tiles depends on it too
+        this.changeCounter++;
+        journal.record(changeCounter, ordinal);
+
+        boolean server = world != null && !world.isRemote;
+        if (server) changedSinceFlush.add(ordinal);
+
+        if (transactionDepth > 0) {
+            transactionChanged = true;
+            return;
+        }
+
+        publishChanges(server);
+    }
+
+    /**
+     * Opens a transaction: changes made until the matching {@link ArchiveTransaction#commit()}
+     * are merged into a single notification.
+     *
+     * @return The open transaction.
+     */
+    public ArchiveTransaction beginTransaction() {
+        ensureDecoded();
+        return new ArchiveTransaction(this, null);
+    }
+
+    /**
+     * Opens one transaction level; used by {@link ArchiveTransaction}.
+     */
+    void beginBatch() {
+        transactionDepth++;
+    }
+
+    /**
+     * Closes one transaction level and publishes the merged changes when the outermost one ends.
+     *
+     * @return True if the outermost transaction ended with changes.
+     */
+    boolean endBatch() {
+        if (transactionDepth <= 0 || --transactionDepth > 0 || !transactionChanged) return false;
+
+        transactionChanged = false;
+        publishChanges(world != null && !world.isRemote);
+
+        return true;
+    }
+
+    /**
+     * Marks the tile dirty and sends the accumulated changes, now or at the end of the tick. The
+     * end-of-tick flush is scheduled either way, as it is where slot compaction runs.
+     *
+     * @param server True if this tile lives in a server world.
+     */
+    private void publishChanges(boolean server) {
+        if (!server) {
+            markDirty();
+            return;
+        }
+
+        if (!SpellArchivesConfig.isCoalescedUpdatesEnabled()) sendChanges();
+
+        if (!flushPending) {
+            flushPending = true;
+            ArchiveUpdateScheduler.schedule(this);
+        }
+    }
+
+    /**
+     * End-of-tick flush, called once per server tick by {@link ArchiveUpdateScheduler}: sends
+     * whatever changes were not sent yet, then compacts dead slots. Compaction only ever runs
+     * here, so handlers never see slot indices shift between two calls within a tick, even when
+     * changes are sent immediately.
+     */
+    void flushChanges() {
+        flushPending = false;
+        if (lastSyncedRevision != changeCounter) sendChanges();
+        if (world == null || world.isRemote || isInvalid()) return;
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Publishes all changes accumulated since the last send: marks the chunk for saving, sends a
+     * delta to clients and refreshes adjacent comparators if their level changed.
+     */
+    private void sendChanges() {
+        if (world == null || world.isRemote || isInvalid() || !world.isBlockLoaded(pos)) {
+            changedSinceFlush.clear();
+            return;
+        }
+
+        // Not markDirty(): that updates comparators on every flush, whether the level moved or not
+        world.markChunkDirty(pos, this);
+        sendDeltaToViewers();
+        updateComparatorLevel();
+
+        lastSyncedRevision = changeCounter;
+        changedSinceFlush.clear();
+
+        // getSnapshot() publishes the new revision for readers on other threads
+        if (publishing) getSnapshot();
+
+        // Players merely seeing the block only need an update when its look or the scroll reserve changes
+        int stripes = getStripeCount();
+        if (stripes != sentStripes || identificationScrolls != sentScrolls) {
+            sentStripes = stripes;
+            sentScrolls = identificationScrolls;
+
+            IBlockState state = world.getBlockState(pos);
+            world.notifyBlockUpdate(pos, state, state, 3);
+        }
+    }
+
+    /**
+     * Drops slots of types extracted down to zero once enough of them accumulated. Runs at the
+     * end of the tick only, so external handlers never see slot indices shift mid-tick; handlers
+     * that remember slot indices across ticks can compare {@link #getSlotGeneration()}.
+     */
+    private void compactIfNeeded() {
+        int dead = store.deadSlotCount();
+        if (dead < COMPACT_MIN_DEAD_SLOTS || dead * 4 < store.slotCount()) return;
+
+        store.compact(ordinal -> {
+            if (ordinal < viewStacks.length) viewStacks[ordinal] = null;
+        });
+    }
+
+    /**
+     * Returns the slot-layout generation of the exposed item handler. It changes whenever slot
+     * indices are renumbered (zero-count compaction or reload); within one generation a slot
+     * always refers to the same spell type.
+     *
+     * @return The slot generation.
+     */
+    public int getSlotGeneration() {
+        return store.slotGeneration();
+    }
+
+    // ---- Client sync ----
+    /**
+     * Registers a player that opened the archive GUI and sends it a full snapshot of the
+     * contents. From then on it receives the per-tick deltas until {@link #removeViewer}.
+     *
+     * @param player The viewing player.
+     */
+    public void addViewer(EntityPlayerMP player) {
+        if (world == null || world.isRemote) return;
+
+        ensureDecoded();
+        viewers.add(player);
+        NetworkHandler.CHANNEL.sendTo(buildSyncMessage(true), player);
+        NetworkHandler.CHANNEL.sendTo(buildIoSettingsMessage(), player);
+    }
+
+    /**
+     * Unregisters a player that closed the archive GUI.
+     *
+     * @param player The player.
+     */
+    public void removeViewer(EntityPlayerMP player) {
+        viewers.remove(player);
+    }
+
+    /**
+     * Sends a full snapshot of the contents to a single viewer, e.g. after it reported a
+     * revision gap. Ignored for players that are not viewing this archive.
+     *
+     * @param player The player to resync.
+     */
+    public void sendFullSync(EntityPlayerMP player) {
+        if (!isViewing(player)) return;
+
+        NetworkHandler.CHANNEL.sendTo(buildSyncMessage(true), player);
+    }
+
+    /**
+     * Sends the (key, newCount) pairs changed since the last flush to every viewer. Viewers that
+     * no longer have this archive's container open (e.g., disconnected) are dropped.
+     */
+    private void sendDeltaToViewers() {
+        if (viewers.isEmpty()) return;
+
+        MessageArchiveSync message = buildSyncMessage(false);
+        for (Iterator<EntityPlayerMP> it = viewers.iterator(); it.hasNext();) {
+            EntityPlayerMP player = it.next();
+            if (!isViewing(player)) {
+                it.remove();
+                continue;
+            }
+
+            NetworkHandler.CHANNEL.sendTo(message, player);
+        }
+    }
+
+    /**
+     * @param player The player.
+     * @return True if the player is a registered viewer with this archive's GUI still open.
+     */
+    public boolean isViewing(EntityPlayerMP player) {
+        return viewers.contains(player) && !player.hasDisconnected()
+            && player.openContainer instanceof ContainerSpellArchive
+            && ((ContainerSpellArchive) player.openContainer).getTile() == this;
+    }
+
+    /**
+     * Builds a sync message: either every non-empty type in slot order, or only the types changed
+     * since the last flush (including ones that dropped to zero).
+     *
+     * @param full True for a full snapshot, false for a delta.
+     * @return The message to send.
+     */
+    private MessageArchiveSync buildSyncMessage(boolean full) {
+        int n = 0;
+        int max = full ? store.slotCount() : changedSinceFlush.size();
+        int[] itemIds = new int[max];
+        int[] metas = new int[max];
+        int[] counts = new int[max];
+
+        for (int i = 0; i < max; i++) {
+            int ordinal = full ? store.ordinalAt(i) : changedSinceFlush.get(i);
+            int count = store.get(ordinal);
+            if (full && count <= 0) continue;
+
+            itemIds[n] = Item.getIdFromItem(SpellKeyIndex.itemOf(ordinal));
+            metas[n] = SpellKeyIndex.metaOf(ordinal);
+            counts[n] = count;
+            n++;
+        }
+
+        if (n < max) {
+            itemIds = Arrays.copyOf(itemIds, n);
+            metas = Arrays.copyOf(metas, n);
+            counts = Arrays.copyOf(counts, n);
+        }
+
+        return new MessageArchiveSync(pos, full, lastSyncedRevision, changeCounter, identificationScrolls, itemIds, metas, counts);
+    }
+
+    /**
+     * Client side: applies a snapshot or delta received from the server. A delta is only applied
+     * if the last applied server revision lies in [baseRevision, revision); deltas carry absolute
+     * counts, so re-applying changes the client already has is harmless. The local change counter
+     * is bumped on every applied payload so GUI caches refresh even when a reopened archive
+     * reports the same server revision.
+     *
+     * @param full True if the payload is a full snapshot replacing all contents.
+     * @param baseRevision Revision the delta was computed against (ignored for snapshots).
+     * @param revision Revision after applying the payload.
+     * @param scrolls Current identification scroll reserve.
+     * @param itemIds Item registry ids of the changed types.
+     * @param metas Metadata of the changed types.
+     * @param counts New counts of the changed types.
+     * @return False if a revision gap was detected and a full resync is needed.
+     */
+    public boolean applySync(boolean full, int baseRevision, int revision, int scrolls, int[] itemIds, int[] metas, int[] counts) {
+        if (!full) {
+            if (lastSyncedRevision >= revision) return true;  // already up to date
+            if (lastSyncedRevision < baseRevision) return false;  // missed an update
+        }
+
+        if (full) {
+            store.clear();
+            resyncRequested = false;
+        }
+
+        for (int i = 0; i < itemIds.length; i++) {
+            Item item = Item.getItemById(itemIds[i]);
+            if (!(item instanceof ItemSpellBook)) continue;
+
+            int ordinal = SpellKeyIndex.ordinalOf(item, metas[i]);
+            if (ordinal < 0) continue;
+
+            store.set(ordinal, counts[i]);
+        }
+
+        this.identificationScrolls = scrolls;
+        this.lastSyncedRevision = revision;
+        this.changeCounter++;
+        journal.reset(changeCounter);
+
+        return true;
+    }
+
+    /**
+     * Client side: records that a full resync was requested.
+     *
+     * @return True if no request was outstanding (the caller should send one).
+     */
+    public boolean markResyncRequested() {
+        if (resyncRequested) return false;
+
+        resyncRequested = true;
+        return true;
+    }
+
+    /**
+     * Resumes the export bus and import when the archive is loaded into a server world. The
+     * contents stay undecoded until something uses them.
+     */
+    @Override
+    public void onLoad() {
+        loaded = true;
+        if (world != null && !world.isRemote && (exportFace != null || importFace != null)) ArchiveIoScheduler.schedule(this, 1);
+    }
+
+    /**
+     * Flushes pending changes before the chunk is unloaded so they are saved with it.
+     */
+    @Override
+    public void onChunkUnload() {
+        ArchiveIoScheduler.cancel(this);
+
+        if (flushPending) {
+            ArchiveUpdateScheduler.cancel(this);
+            flushChanges();
+        }
+
+        super.onChunkUnload();
+    }
+
+    /**
+     * Drops any pending flush and all viewers when the tile is removed from the world.
+     */
+    @Override
+    public void invalidate() {
+        viewers.clear();
+        super.invalidate();
+
+        ArchiveIoScheduler.cancel(this);
+
+        if (flushPending) {
+            ArchiveUpdateScheduler.cancel(this);
+            flushPending = false;
+            changedSinceFlush.clear();
         }
     }
 }